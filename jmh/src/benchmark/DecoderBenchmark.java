@@ -0,0 +1,67 @@
+package benchmark;
+
+import core.LZ77Decoder;
+import core.LZ77Encoder;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LZ77Decoder#decode} of one mebibyte of synthetic input, encoded once during
+ * setup, so the score in operations per second is the decoding speed in MiB/s. Output goes to a
+ * preallocated array, so a steady-state decode should allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DecoderBenchmark {
+    @Param({"TEXT", "XML", "BINARY", "RANDOM"})
+    private SyntheticInput input;
+
+    @Param({"4096", "32768"})
+    private int windowSize;
+
+    @Param({"40", "258"})
+    private int lookAheadSize;
+
+    private final LZ77Decoder decoder = new LZ77Decoder();
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final SequenceBuffer sequences = new SequenceBuffer();
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        byte[] data = input.generate(SyntheticInput.MEBIBYTE);
+        LZ77Encoder encoder = new LZ77Encoder(windowSize, lookAheadSize);
+        encoder.encode(data, 0, data.length, tokens);
+        encoder.encode(data, 0, data.length, sequences);
+        output = new byte[data.length];
+    }
+
+    @Benchmark
+    public byte[] decodeTokens() {
+        decoder.decode(tokens, output, 0);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decodeSequences() {
+        decoder.decode(sequences, output, 0);
+        return output;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import core.LZ77Encoder;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LZ77Encoder#encode} on one mebibyte of synthetic input, so the score in
+ * operations per second is the encoding speed in MiB/s. The token and sequence buffers are
+ * reused across operations, as the block encoders reuse them, so once warmed up the only
+ * allocation left is whatever the encoder itself does per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EncoderBenchmark {
+    @Param({"TEXT", "XML", "BINARY", "RANDOM"})
+    private SyntheticInput input;
+
+    @Param({"4096", "32768"})
+    private int windowSize;
+
+    @Param({"40", "258"})
+    private int lookAheadSize;
+
+    private byte[] data;
+    private LZ77Encoder encoder;
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final SequenceBuffer sequences = new SequenceBuffer();
+
+    @Setup
+    public void setUp() {
+        data = input.generate(SyntheticInput.MEBIBYTE);
+        encoder = new LZ77Encoder(windowSize, lookAheadSize);
+    }
+
+    @Benchmark
+    public TokenBuffer encodeTokens() {
+        encoder.encode(data, 0, data.length, tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public SequenceBuffer encodeSequences() {
+        encoder.encode(data, 0, data.length, sequences);
+        return sequences;
+    }
+}
@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic inputs that stand in for the kinds of file in the Silesia corpus, so the
+ * benchmarks run without the corpus on disk and every fork measures the same bytes.
+ */
+public enum SyntheticInput {
+    /**
+     * English-like prose with a skewed word distribution, like {@code dickens}.
+     */
+    TEXT {
+        @Override
+        void fill(byte[] data, Random random) {
+            StringBuilder sb = new StringBuilder(data.length + 64);
+            while (sb.length() < data.length) {
+                int words = 5 + random.nextInt(20);
+                for (int i = 0; i < words; i++) {
+                    sb.append(i == 0 ? "" : " ").append(WORDS[skewedIndex(random, WORDS.length)]);
+                }
+                sb.append(random.nextInt(8) == 0 ? ".\n" : ". ");
+            }
+            copy(sb, data);
+        }
+    },
+    /**
+     * Repetitive markup with varying attribute values, like {@code xml}.
+     */
+    XML {
+        @Override
+        void fill(byte[] data, Random random) {
+            StringBuilder sb = new StringBuilder(data.length + 256);
+            while (sb.length() < data.length) {
+                sb.append("<record id=\"").append(random.nextInt(1_000_000)).append("\">\n")
+                        .append("  <name>").append(WORDS[skewedIndex(random, WORDS.length)]).append("</name>\n")
+                        .append("  <value unit=\"ms\">").append(random.nextInt(10_000)).append("</value>\n")
+                        .append("</record>\n");
+            }
+            copy(sb, data);
+        }
+    },
+    /**
+     * Fixed-width records of small integers and recurring byte patterns, like the executables and
+     * databases in the corpus.
+     */
+    BINARY {
+        @Override
+        void fill(byte[] data, Random random) {
+            byte[][] patterns = new byte[64][];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = new byte[2 + random.nextInt(7)];
+                random.nextBytes(patterns[i]);
+            }
+            int pos = 0;
+            while (pos < data.length) {
+                if (random.nextBoolean()) {
+                    byte[] pattern = patterns[skewedIndex(random, patterns.length)];
+                    int length = Math.min(pattern.length, data.length - pos);
+                    System.arraycopy(pattern, 0, data, pos, length);
+                    pos += length;
+                } else {
+                    data[pos++] = (byte) (random.nextGaussian() * 8);
+                }
+            }
+        }
+    },
+    /**
+     * Uniformly random bytes, like already-compressed data.
+     */
+    RANDOM {
+        @Override
+        void fill(byte[] data, Random random) {
+            random.nextBytes(data);
+        }
+    };
+
+    /**
+     * The size of the inputs the codec benchmarks work on. At one mebibyte per operation, a
+     * throughput in operations per second reads directly as MiB/s.
+     */
+    public static final int MEBIBYTE = 1 << 20;
+
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "a", "in", "that", "he", "was", "it", "his", "her", "with", "as",
+            "had", "for", "she", "you", "not", "be", "on", "at", "him", "said", "by", "all", "have",
+            "from", "this", "which", "were", "so", "my", "but", "there", "no", "or", "what", "one",
+            "would", "been", "when", "they", "if", "could", "upon", "into", "more", "little", "out",
+            "very", "time", "know", "man", "mister", "old", "gentleman", "house", "never", "again"
+    };
+
+    /**
+     * Returns {@code size} bytes of this kind of input. The same size always gives the same bytes.
+     */
+    public byte[] generate(int size) {
+        byte[] data = new byte[size];
+        fill(data, new Random(ordinal() + 1));
+        return data;
+    }
+
+    abstract void fill(byte[] data, Random random);
+
+    /**
+     * Picks an index with a roughly Zipfian distribution, low indices being the most likely.
+     */
+    private static int skewedIndex(Random random, int bound) {
+        double u = random.nextDouble();
+        return (int) (bound * u * u * u);
+    }
+
+    private static void copy(StringBuilder sb, byte[] data) {
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, data, 0, data.length);
+    }
+}
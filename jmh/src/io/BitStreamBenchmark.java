@@ -0,0 +1,88 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.EOFException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BitWriter#writeBits} and {@link BitReader#readBits} over a run of fields. The
+ * score is in fields per microsecond. Field widths are either fixed, as in the packed token
+ * format, or mixed from 1 to 24 bits, as in the Huffman and FSE payloads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BitStreamBenchmark {
+    private static final int FIELD_COUNT = 1 << 16;
+
+    /**
+     * The width of every field in bits, or 0 for mixed widths.
+     */
+    @Param({"1", "8", "9", "0"})
+    private int width;
+
+    private int[] values;
+    private int[] widths;
+    private BitWriter writer;
+    private byte[] written;
+    private int writtenLength;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new int[FIELD_COUNT];
+        widths = new int[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            widths[i] = width != 0 ? width : 1 + random.nextInt(24);
+            values[i] = random.nextInt() & ((1 << widths[i]) - 1);
+        }
+
+        writer = new BitWriter(FIELD_COUNT * 4);
+        writeFields();
+        written = writer.array();
+        writtenLength = writer.size();
+        writer = new BitWriter(FIELD_COUNT * 4);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIELD_COUNT)
+    public int writeBits() {
+        writer.reset();
+        writeFields();
+        return writer.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIELD_COUNT)
+    public int readBits() throws EOFException {
+        BitReader reader = new BitReader(written, 0, writtenLength);
+        int sum = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            sum += reader.readBits(widths[i]);
+        }
+        return sum;
+    }
+
+    private void writeFields() {
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            writer.writeBits(values[i], widths[i]);
+        }
+        writer.flush();
+    }
+}
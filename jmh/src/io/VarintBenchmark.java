@@ -0,0 +1,131 @@
+package io;
+
+import benchmark.SyntheticInput;
+import core.LZ77Encoder;
+import model.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the variable-length integer coding of the packed token format, on its own and as part
+ * of whole token blocks.
+ * <p>
+ * The LEB128 benchmarks code a run of values drawn like match distances from a window of the
+ * given size, and score in values per microsecond. The token benchmarks write and read the
+ * tokens of one mebibyte of text in the format of a container version, the two-byte values of
+ * version 2 or the LEB128 values of later versions, and score in MiB/s of input.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class VarintBenchmark {
+    private static final int VALUE_COUNT = 1 << 16;
+
+    @State(Scope.Thread)
+    public static class Values {
+        @Param({"128", "16384", "1048576"})
+        private int maxValue;
+
+        private int[] values;
+        private BitWriter writer;
+        private byte[] written;
+        private int writtenLength;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            values = new int[VALUE_COUNT];
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                values[i] = 1 + random.nextInt(maxValue);
+            }
+            writer = new BitWriter(VALUE_COUNT * 5);
+            write();
+            written = writer.array();
+            writtenLength = writer.size();
+            writer = new BitWriter(VALUE_COUNT * 5);
+        }
+
+        int write() {
+            writer.reset();
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                BlockFormat.writeLeb128(writer, values[i]);
+            }
+            writer.flush();
+            return writer.size();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Tokens {
+        @Param({"2", "3"})
+        private int version;
+
+        private final TokenBuffer tokens = new TokenBuffer();
+        private final TokenBuffer decoded = new TokenBuffer();
+        private BitWriter writer;
+        private byte[] written;
+        private int writtenLength;
+
+        @Setup
+        public void setUp() {
+            byte[] data = SyntheticInput.TEXT.generate(SyntheticInput.MEBIBYTE);
+            // Version 2 cannot store distances beyond its two-byte limit
+            new LZ77Encoder(BlockFormat.LEGACY_MAX_VALUE, 258).encode(data, 0, data.length, tokens);
+            writer = new BitWriter(data.length);
+            BlockFormat.writeTokens(tokens, writer, version);
+            writer.flush();
+            written = writer.array().clone();
+            writtenLength = writer.size();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int writeLeb128(Values state) {
+        return state.write();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int readLeb128(Values state) throws IOException {
+        BitReader reader = new BitReader(state.written, 0, state.writtenLength);
+        int sum = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            sum += BlockFormat.readLeb128(reader);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int writeTokens(Tokens state) {
+        state.writer.reset();
+        BlockFormat.writeTokens(state.tokens, state.writer, state.version);
+        state.writer.flush();
+        return state.writer.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public TokenBuffer readTokens(Tokens state) throws IOException {
+        BlockFormat.readTokens(new BitReader(state.written, 0, state.writtenLength), state.decoded, state.version);
+        return state.decoded;
+    }
+}
@@ -1,8 +1,11 @@
+import core.CompressionLevel;
 import core.LZ77Codec;
 import core.LZ77Encoder;
 import core.LZ77Decoder;
 import io.FileEncoder;
 import io.FileDecoder;
+import io.LZ77OutputStream;
+import io.TokenCoding;
 import metrics.CompressionMetrics;
 import model.LZ77Token;
 import util.TraceUtil;
@@ -12,8 +15,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main class for running the LZ77 compression tool in different modes:
@@ -25,6 +31,7 @@ import java.util.Scanner;
 public class LZ77Main {
     private static final int DEFAULT_WINDOW_SIZE = 4096;
     private static final int DEFAULT_LOOKAHEAD_SIZE = 40;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
 
     /**
      * Entry point for the LZ77 compression tool.
@@ -270,17 +277,48 @@ public class LZ77Main {
         System.out.print("Enter path for output file: ");
         String outputPath = scanner.nextLine();
 
-        System.out.print("Enter window size (default " + DEFAULT_WINDOW_SIZE + "): ");
-        String windowSizeStr = scanner.nextLine();
-        int windowSize = windowSizeStr.isEmpty() ? DEFAULT_WINDOW_SIZE : Integer.parseInt(windowSizeStr);
+        System.out.print("Enter compression level (fast, 1-9; leave empty to choose window and look-ahead sizes): ");
+        String levelStr = scanner.nextLine();
+        LZ77Encoder lz77Encoder;
+        if (levelStr.isEmpty()) {
+            System.out.print("Enter window size (default " + DEFAULT_WINDOW_SIZE + "): ");
+            String windowSizeStr = scanner.nextLine();
+            int windowSize = windowSizeStr.isEmpty() ? DEFAULT_WINDOW_SIZE : Integer.parseInt(windowSizeStr);
 
-        System.out.print("Enter look-ahead buffer size (default " + DEFAULT_LOOKAHEAD_SIZE + "): ");
-        String lookAheadSizeStr = scanner.nextLine();
-        int lookAheadSize = lookAheadSizeStr.isEmpty() ? DEFAULT_LOOKAHEAD_SIZE : Integer.parseInt(lookAheadSizeStr);
+            System.out.print("Enter look-ahead buffer size (default " + DEFAULT_LOOKAHEAD_SIZE + "): ");
+            String lookAheadSizeStr = scanner.nextLine();
+            int lookAheadSize = lookAheadSizeStr.isEmpty() ? DEFAULT_LOOKAHEAD_SIZE : Integer.parseInt(lookAheadSizeStr);
+
+            lz77Encoder = new LZ77Encoder(windowSize, lookAheadSize);
+        } else {
+            try {
+                CompressionLevel level = CompressionLevel.parse(levelStr);
+                lz77Encoder = level.newEncoder();
+                System.out.println("Level " + level + ": window size " + level.getWindowSize()
+                        + ", match length " + level.getMinMatchLength() + "-" + level.getMaxMatchLength()
+                        + ", search depth " + level.getSearchDepth() + ", " + level.getParsingStrategy() + " parsing");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage());
+                return;
+            }
+        }
+
+        System.out.print("Enter token coding (packed, huffman, fse, sequences; default packed): ");
+        String codingStr = scanner.nextLine();
+        TokenCoding coding;
+        try {
+            coding = codingStr.isEmpty() ? LZ77OutputStream.DEFAULT_CODING
+                    : TokenCoding.valueOf(codingStr.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Unknown token coding: " + codingStr);
+            return;
+        }
 
+        // Blocks are compressed in parallel, with reset points so they can be decompressed in parallel too
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
         try {
-            LZ77Codec codec = new LZ77Codec(windowSize, lookAheadSize);
-            FileEncoder encoder = new FileEncoder(new LZ77Encoder(windowSize, lookAheadSize));
+            FileEncoder encoder = new FileEncoder(lz77Encoder, LZ77OutputStream.DEFAULT_BLOCK_SIZE, executor,
+                    LZ77OutputStream.DEFAULT_RESET_INTERVAL, coding);
 
             System.out.println("\nCompressing file...");
             long encodingTime = encoder.encodeFile(inputPath, outputPath);
@@ -295,6 +333,8 @@ public class LZ77Main {
 
         } catch (IOException e) {
             System.out.println("Error compressing file: " + e.getMessage());
+        } finally {
+            executor.shutdown();
         }
     }
 
@@ -311,9 +351,10 @@ public class LZ77Main {
         System.out.print("Enter path for decompressed output file: ");
         String outputPath = scanner.nextLine();
 
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
         try {
             LZ77Codec codec = new LZ77Codec(DEFAULT_WINDOW_SIZE, DEFAULT_LOOKAHEAD_SIZE);
-            FileDecoder decoder = new FileDecoder(new LZ77Decoder());
+            FileDecoder decoder = new FileDecoder(new LZ77Decoder(), executor);
 
             System.out.println("\nDecompressing file...");
             long decodingTime = decoder.decodeFile(inputPath, outputPath);
@@ -323,6 +364,8 @@ public class LZ77Main {
 
         } catch (IOException e) {
             System.out.println("Error decompressing file: " + e.getMessage());
+        } finally {
+            executor.shutdown();
         }
     }
 }
\ No newline at end of file
@@ -1,9 +1,19 @@
+import core.BinaryTreeMatchFinder;
+import core.BruteForceMatchFinder;
+import core.CompressionLevel;
+import core.HashChainMatchFinder;
 import core.LZ77Codec;
 import core.LZ77Encoder;
 import core.LZ77Decoder;
+import core.MatchFinder;
+import core.SuffixArrayMatchFinder;
 import io.FileEncoder;
 import io.FileDecoder;
+import io.LZ77OutputStream;
+import io.TokenCoding;
 import metrics.CompressionMetrics;
+import metrics.CompressionStatistics;
+import util.CorpusFiles;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,28 +21,75 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is designed to run automated tests on the Silesia Corpus
  * for benchmarking the LZ77 compression algorithm with different parameters.
  * <p>
- * It evaluates multiple window and look-ahead buffer sizes, collects compression
+ * It evaluates a grid of window and look-ahead buffer sizes, collects compression
  * metrics, verifies file integrity, and generates both a summary CSV and a detailed report.
+ * The (configuration, file) runs of the grid are spread over a thread pool, and each result
+ * is appended to the summary as soon as it is verified, so an interrupted benchmark can be
+ * resumed without repeating the runs it finished.
  */
 public class LZ77SilesiaTest {
 
-    // Default parameters
-    private static final int[] WINDOW_SIZES = {1024, 4096, 8192, 16384};
-    private static final int[] LOOKAHEAD_SIZES = {16, 32, 64, 128};
+    // Default parameter grid, replaced with --windows and --lookaheads
+    private static final int[] DEFAULT_WINDOW_SIZES = {1024, 4096, 8192, 16384};
+    private static final int[] DEFAULT_LOOKAHEAD_SIZES = {16, 32, 64, 128};
+
+    private static final String SUMMARY_HEADER = "Filename,Window Size,Look-ahead Size,Original Size (bytes),"
+            + "Compressed Size (bytes),Compression Ratio,Avg Code Length (bits/symbol),Encoding Time (ms),"
+            + "Decoding Time (ms)";
+    private static final int SUMMARY_COLUMNS = 9;
+    private static final String USAGE = "Usage: java LZ77SilesiaTest [path-to-silesia-corpus]"
+            + " [--windows sizes] [--lookaheads sizes] [--threads count] [--resume results-directory]"
+            + " [--match-finders] [--codings] [--levels] [--profile]";
+
+    // Encoders and decoders are reused by each worker thread from one file to the next
+    private static final ThreadLocal<Map<String, FileEncoder>> ENCODERS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<FileDecoder> DECODERS =
+            ThreadLocal.withInitial(() -> new FileDecoder(new LZ77Decoder()));
+    private static final Object SUMMARY_LOCK = new Object();
+
+    // Parameters for the match finder comparison
+    private static final int MATCH_FINDER_WINDOW_SIZE = 4096;
+    private static final int MATCH_FINDER_LOOKAHEAD_SIZE = 40;
+
+    // Parameters for the token coding comparison
+    private static final int CODING_WINDOW_SIZE = 4096;
+    private static final int CODING_LOOKAHEAD_SIZE = 40;
 
     /**
      * Entry point for running the benchmark tool.
      * Takes the path to the Silesia Corpus directory as an optional command-line argument.
+     * {@code --windows} and {@code --lookaheads} take comma-separated sizes that replace the
+     * default parameter grid, {@code --threads} sets how many runs execute at once (default: one
+     * per processor), and {@code --resume} continues an earlier benchmark in its results
+     * directory, skipping the runs already in its summary.
+     * Passing {@code --match-finders} additionally compares the match finder engines,
+     * {@code --codings} compares the token codings of the container format,
+     * {@code --levels} measures every compression level, and {@code --profile} records the
+     * throughput, block latency, token and allocation statistics of the default level.
      *
-     * @param args Optional command-line arguments (first argument: path to corpus).
+     * @param args Optional command-line arguments (path to corpus, {@code --windows},
+     *             {@code --lookaheads}, {@code --threads}, {@code --resume},
+     *             {@code --match-finders}, {@code --codings}, {@code --levels}, {@code --profile}).
      */
     public static void main(String[] args) {
         System.out.println("=== LZ77 Silesia Corpus Benchmark Tool ===");
@@ -40,84 +97,268 @@ public class LZ77SilesiaTest {
         System.out.println("with different window and look-ahead buffer sizes.");
 
         // Get corpus directory from command line or use default
-        String corpusPath = args.length > 0 ? args[0] : "./silesia";
+        String corpusPath = "./silesia";
+        boolean compareMatchFinders = false;
+        boolean compareCodings = false;
+        boolean compareLevels = false;
+        boolean profile = false;
+        int[] windowSizes = DEFAULT_WINDOW_SIZES;
+        int[] lookAheadSizes = DEFAULT_LOOKAHEAD_SIZES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String resumeDir = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--match-finders")) {
+                    compareMatchFinders = true;
+                } else if (arg.equals("--codings")) {
+                    compareCodings = true;
+                } else if (arg.equals("--levels")) {
+                    compareLevels = true;
+                } else if (arg.equals("--profile")) {
+                    profile = true;
+                } else if (arg.equals("--windows")) {
+                    windowSizes = parseSizes(optionValue(args, i++));
+                } else if (arg.equals("--lookaheads")) {
+                    lookAheadSizes = parseSizes(optionValue(args, i++));
+                } else if (arg.equals("--threads")) {
+                    threads = parseThreadCount(optionValue(args, i++));
+                } else if (arg.equals("--resume")) {
+                    resumeDir = optionValue(args, i++);
+                } else {
+                    corpusPath = arg;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
 
-        File corpusDir = new File(corpusPath);
-        if (!corpusDir.exists() || !corpusDir.isDirectory()) {
+        File[] files = CorpusFiles.list(new File(corpusPath));
+        if (files == null) {
             System.out.println("Error: Invalid Silesia Corpus directory path: " + corpusPath);
-            System.out.println("Usage: java LZ77SilesiaTest [path-to-silesia-corpus]");
+            System.out.println(USAGE);
             return;
         }
 
-        // Create timestamp for results directory
-        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
-        String resultsDir = "./benchmark-" + timestamp;
+        // Create a timestamped results directory, unless resuming an earlier one
+        String resultsDir;
+        if (resumeDir != null) {
+            resultsDir = resumeDir;
+        } else {
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            resultsDir = "./benchmark-" + timestamp;
+        }
         File resultsDirFile = new File(resultsDir);
-        if (!resultsDirFile.mkdir()) {
+        if (!resultsDirFile.isDirectory() && !resultsDirFile.mkdirs()) {
             System.err.println("Warning: Could not create directory: " + resultsDir);
         }
 
-        // Initialize summary CSV file
+        // Initialize summary CSV file, or collect the runs it already holds
         Path summaryPath = Paths.get(resultsDir + "/summary.csv");
+        Set<String> completedRuns;
         try {
-            Files.writeString(summaryPath,
-                    "Filename,Window Size,Look-ahead Size,Original Size (bytes),Compressed Size (bytes),"
-                            + "Compression Ratio,Avg Code Length (bits/symbol),Encoding Time (ms),Decoding Time (ms)\n");
+            completedRuns = loadCompletedRuns(summaryPath);
         } catch (IOException e) {
             System.err.println("Error creating summary file: " + e.getMessage());
             return;
         }
 
-        // List Silesia Corpus files
-        File[] files = corpusDir.listFiles(f -> f.isFile() && !f.getName().startsWith("."));
-        if (files == null || files.length == 0) {
+        if (files.length == 0) {
             System.out.println("No files found in the Silesia Corpus directory");
             return;
         }
 
         System.out.println("\nFound " + files.length + " files in the Silesia Corpus");
         System.out.println("Results will be saved to: " + resultsDir);
-        System.out.println("\nRunning tests with multiple window and look-ahead buffer sizes...");
+        if (!completedRuns.isEmpty()) {
+            System.out.println("Resuming: " + completedRuns.size() + " runs already completed");
+        }
+        System.out.println("\nRunning tests with window sizes " + arrayToString(windowSizes)
+                + " and look-ahead buffer sizes " + arrayToString(lookAheadSizes) + " on " + threads + " threads...");
 
-        // Test each combination of window size and look-ahead buffer size
-        for (int windowSize : WINDOW_SIZES) {
-            for (int lookAheadSize : LOOKAHEAD_SIZES) {
-                System.out.println("\n=== Testing with Window Size: " + windowSize +
-                        ", Look-ahead Size: " + lookAheadSize + " ===");
+        runGrid(files, windowSizes, lookAheadSizes, threads, resultsDir, summaryPath, completedRuns);
 
+        if (compareMatchFinders) {
+            benchmarkMatchFinders(files, resultsDir);
+        }
+        if (compareCodings) {
+            benchmarkCodings(files, resultsDir);
+        }
+        if (compareLevels) {
+            benchmarkLevels(files, resultsDir);
+        }
+        if (profile) {
+            profileDefaultLevel(files, resultsDir);
+        }
+
+        System.out.println("\n=== Benchmark completed ===");
+        System.out.println("Results saved to: " + resultsDir);
+        System.out.println("Summary file: " + summaryPath);
+
+        // Generate report if needed
+        generateReport(resultsDir, windowSizes, lookAheadSizes);
+    }
+
+    /**
+     * Runs every (window size, look-ahead size, file) combination not in {@code completedRuns}
+     * on a pool of worker threads and waits for all of them. Runs execute concurrently, so their
+     * timings include contention for the processors; use a single thread for undisturbed times.
+     *
+     * @param files          The corpus files to test.
+     * @param windowSizes    The window sizes of the grid.
+     * @param lookAheadSizes The look-ahead buffer sizes of the grid.
+     * @param threads        The number of runs to execute at once.
+     * @param resultsDir     The directory where results will be saved.
+     * @param summaryPath    The summary CSV file each result is appended to.
+     * @param completedRuns  The keys of runs to skip, as returned by {@link #runKey}.
+     */
+    private static void runGrid(File[] files, int[] windowSizes, int[] lookAheadSizes, int threads,
+                                String resultsDir, Path summaryPath, Set<String> completedRuns) {
+        List<Runnable> runs = new ArrayList<>();
+        for (int windowSize : windowSizes) {
+            for (int lookAheadSize : lookAheadSizes) {
                 String configDir = resultsDir + "/w" + windowSize + "_la" + lookAheadSize;
                 File configDirFile = new File(configDir);
-                if (!configDirFile.mkdir()) {
+                if (!configDirFile.isDirectory() && !configDirFile.mkdir()) {
                     System.err.println("Warning: Could not create directory: " + configDir);
                 }
 
-                System.out.println("------------------------------------------------------------");
-                System.out.printf("%-20s %-15s %-15s %-15s %-15s %-15s %-15s\n",
-                        "Filename", "Original", "Compressed", "Ratio", "Bits/Symbol", "Encode (ms)", "Decode (ms)");
-                System.out.println("------------------------------------------------------------");
-
                 for (File file : files) {
-                    try {
-                        testFile(file, windowSize, lookAheadSize, configDir, summaryPath.toString());
-                    } catch (Exception e) {
-                        System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
-                        System.err.println("Stack trace: " + e);
+                    if (completedRuns.contains(runKey(file.getName(), windowSize, lookAheadSize))) {
+                        continue;
                     }
+                    runs.add(() -> {
+                        try {
+                            testFile(file, windowSize, lookAheadSize, configDir, summaryPath.toString());
+                        } catch (Exception e) {
+                            System.err.println("Error processing file " + file.getName() + " (window " + windowSize
+                                    + ", look-ahead " + lookAheadSize + "): " + e.getMessage());
+                            System.err.println("Stack trace: " + e);
+                        }
+                    });
                 }
             }
         }
 
-        System.out.println("\n=== Benchmark completed ===");
-        System.out.println("Results saved to: " + resultsDir);
-        System.out.println("Summary file: " + summaryPath);
+        System.out.println("------------------------------------------------------------");
+        System.out.printf("%-20s %-10s %-10s %-15s %-15s %-15s %-15s %-15s %-15s\n", "Filename", "Window",
+                "Look-ahead", "Original", "Compressed", "Ratio", "Bits/Symbol", "Encode (ms)", "Decode (ms)");
+        System.out.println("------------------------------------------------------------");
 
-        // Generate report if needed
-        generateReport(resultsDir);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable run : runs) {
+                futures.add(executor.submit(run));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Benchmark interrupted; run it again with --resume " + resultsDir + " to continue");
+        } catch (ExecutionException e) {
+            System.err.println("Error running benchmark: " + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the keys of the runs recorded in a summary CSV file, creating the file with its
+     * header if it does not exist. Rows cut short by an interrupted run are dropped from the
+     * file, so those runs are repeated.
+     *
+     * @param summaryPath Path to the summary CSV file.
+     * @return The keys, as returned by {@link #runKey}, of the complete rows.
+     * @throws IOException If the file cannot be read or written.
+     */
+    private static Set<String> loadCompletedRuns(Path summaryPath) throws IOException {
+        Set<String> completedRuns = new HashSet<>();
+        if (!Files.exists(summaryPath)) {
+            Files.writeString(summaryPath, SUMMARY_HEADER + "\n");
+            return completedRuns;
+        }
+
+        StringBuilder kept = new StringBuilder(SUMMARY_HEADER).append("\n");
+        List<String> lines = Files.readAllLines(summaryPath);
+        for (int i = 1; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(",");
+            if (fields.length != SUMMARY_COLUMNS) {
+                continue;
+            }
+            String key;
+            try {
+                key = runKey(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+                Double.parseDouble(fields[SUMMARY_COLUMNS - 1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            completedRuns.add(key);
+            kept.append(lines.get(i)).append(System.lineSeparator());
+        }
+        Files.writeString(summaryPath, kept);
+        return completedRuns;
+    }
+
+    /**
+     * Identifies one run of the parameter grid.
+     */
+    private static String runKey(String fileName, int windowSize, int lookAheadSize) {
+        return fileName + "," + windowSize + "," + lookAheadSize;
+    }
+
+    /**
+     * Returns the value following the option at {@code index}.
+     */
+    private static String optionValue(String[] args, int index) {
+        if (index + 1 >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index]);
+        }
+        return args[index + 1];
+    }
+
+    /**
+     * Parses a comma-separated list of positive sizes, such as {@code 4096,32768}.
+     */
+    private static int[] parseSizes(String text) {
+        String[] parts = text.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                sizes[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid size: " + parts[i]);
+            }
+            if (sizes[i] <= 0) {
+                throw new IllegalArgumentException("Size must be positive: " + parts[i]);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Parses a thread count, which must be at least 1.
+     */
+    private static int parseThreadCount(String text) {
+        int threads;
+        try {
+            threads = Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid thread count: " + text);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + text);
+        }
+        return threads;
     }
 
     /**
      * Tests a single file using LZ77 compression with the given parameters.
      * Records metrics, verifies output correctness, and appends results to the summary CSV.
+     * A run whose output does not verify is not recorded, so a resumed benchmark repeats it.
      *
      * @param file         The file to be compressed.
      * @param windowSize   Size of the sliding window.
@@ -132,9 +373,10 @@ public class LZ77SilesiaTest {
         String compressedPath = outputDir + "/" + file.getName() + ".lz77";
         String decompressedPath = outputDir + "/" + file.getName() + ".decoded";
 
-        // Initialize codec and IO components
-        FileEncoder encoder = new FileEncoder(new LZ77Encoder(windowSize, lookAheadSize));
-        FileDecoder decoder = new FileDecoder(new LZ77Decoder());
+        // Reuse this thread's codec and IO components
+        FileEncoder encoder = ENCODERS.get().computeIfAbsent("w" + windowSize + "_la" + lookAheadSize,
+                key -> new FileEncoder(new LZ77Encoder(windowSize, lookAheadSize)));
+        FileDecoder decoder = DECODERS.get();
         CompressionMetrics metrics = new CompressionMetrics();
 
         // Encode
@@ -146,9 +388,16 @@ public class LZ77SilesiaTest {
         // Calculate metrics
         Map<String, Double> metricsMap = metrics.calculateMetrics(inputPath, compressedPath);
 
+        // Verify file integrity
+        if (!verifyFileIntegrity(inputPath, decompressedPath)) {
+            return;
+        }
+
         // Print results
-        System.out.printf("%-20s %-15d %-15d %-15.4f %-15.4f %-15.2f %-15.2f\n",
+        System.out.printf("%-20s %-10d %-10d %-15d %-15d %-15.4f %-15.4f %-15.2f %-15.2f\n",
                 file.getName(),
+                windowSize,
+                lookAheadSize,
                 metricsMap.get("originalSize").longValue(),
                 metricsMap.get("compressedSize").longValue(),
                 metricsMap.get("compressionRatio"),
@@ -156,9 +405,6 @@ public class LZ77SilesiaTest {
                 encodingTime,
                 decodingTime);
 
-        // Verify file integrity
-        verifyFileIntegrity(inputPath, decompressedPath);
-
         // Append to summary CSV
         String csvLine = String.format("%s,%d,%d,%d,%d,%.4f,%.4f,%.2f,%.2f",
                 file.getName(),
@@ -171,11 +417,277 @@ public class LZ77SilesiaTest {
                 encodingTime,
                 decodingTime);
 
-        Files.writeString(
-                Paths.get(summaryFile),
-                csvLine + System.lineSeparator(),
-                StandardOpenOption.APPEND
-        );
+        synchronized (SUMMARY_LOCK) {
+            Files.writeString(
+                    Paths.get(summaryFile),
+                    csvLine + System.lineSeparator(),
+                    StandardOpenOption.APPEND
+            );
+        }
+    }
+
+    /**
+     * Compares the encoding time and token count of each match finder engine on every file,
+     * timing only the in-memory encode, and writes the results to matchfinders.csv.
+     *
+     * @param files      The corpus files to encode.
+     * @param resultsDir The directory where the CSV file will be saved.
+     */
+    private static void benchmarkMatchFinders(File[] files, String resultsDir) {
+        System.out.println("\n=== Comparing match finders with Window Size: " + MATCH_FINDER_WINDOW_SIZE +
+                ", Look-ahead Size: " + MATCH_FINDER_LOOKAHEAD_SIZE + " ===");
+        System.out.println("------------------------------------------------------------");
+        System.out.printf("%-20s %-25s %-15s %-15s\n", "Filename", "Match Finder", "Tokens", "Encode (ms)");
+        System.out.println("------------------------------------------------------------");
+
+        Path csvPath = Paths.get(resultsDir + "/matchfinders.csv");
+        try {
+            Files.writeString(csvPath, "Filename,Match Finder,Window Size,Look-ahead Size,Tokens,Encoding Time (ms)\n");
+        } catch (IOException e) {
+            System.err.println("Error creating match finder file: " + e.getMessage());
+            return;
+        }
+
+        for (File file : files) {
+            try {
+                byte[] content = Files.readAllBytes(file.toPath());
+
+                MatchFinder[] finders = {
+                        new BruteForceMatchFinder(),
+                        new HashChainMatchFinder(),
+                        new BinaryTreeMatchFinder(),
+                        new SuffixArrayMatchFinder()
+                };
+
+                for (MatchFinder finder : finders) {
+                    LZ77Encoder encoder = new LZ77Encoder(MATCH_FINDER_WINDOW_SIZE, MATCH_FINDER_LOOKAHEAD_SIZE, finder);
+                    long startTime = System.nanoTime();
+                    int tokenCount = encoder.encode(content).size();
+                    double encodingTime = (System.nanoTime() - startTime) / 1_000_000.0;
+
+                    String finderName = finder.getClass().getSimpleName();
+                    System.out.printf("%-20s %-25s %-15d %-15.2f\n", file.getName(), finderName, tokenCount, encodingTime);
+
+                    String csvLine = String.format("%s,%s,%d,%d,%d,%.2f",
+                            file.getName(),
+                            finderName,
+                            MATCH_FINDER_WINDOW_SIZE,
+                            MATCH_FINDER_LOOKAHEAD_SIZE,
+                            tokenCount,
+                            encodingTime);
+                    Files.writeString(csvPath, csvLine + System.lineSeparator(), StandardOpenOption.APPEND);
+                }
+            } catch (IOException e) {
+                System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compresses every file with each token coding, verifies the output and compares the
+     * average code length against the plain bit-packed format. Results go to codings.csv.
+     *
+     * @param files      The corpus files to encode.
+     * @param resultsDir The directory where the CSV file and compressed files will be saved.
+     */
+    private static void benchmarkCodings(File[] files, String resultsDir) {
+        System.out.println("\n=== Comparing token codings with Window Size: " + CODING_WINDOW_SIZE +
+                ", Look-ahead Size: " + CODING_LOOKAHEAD_SIZE + " ===");
+
+        String codingDir = resultsDir + "/codings";
+        Path csvPath = Paths.get(resultsDir + "/codings.csv");
+        try {
+            Files.createDirectories(Paths.get(codingDir));
+            Files.writeString(csvPath, "Filename,Coding,Original Size (bytes),Compressed Size (bytes),"
+                    + "Avg Code Length (bits/symbol),Encoding Time (ms),Decoding Time (ms)\n");
+        } catch (IOException e) {
+            System.err.println("Error creating coding comparison file: " + e.getMessage());
+            return;
+        }
+
+        CompressionMetrics metrics = new CompressionMetrics();
+        FileDecoder decoder = new FileDecoder(new LZ77Decoder());
+        for (File file : files) {
+            try {
+                Map<String, Map<String, Double>> metricsByCoding = new LinkedHashMap<>();
+                for (TokenCoding coding : TokenCoding.values()) {
+                    String compressedPath = codingDir + "/" + file.getName() + "." + coding.name().toLowerCase(Locale.ROOT) + ".lz77";
+                    String decompressedPath = codingDir + "/" + file.getName() + ".decoded";
+                    FileEncoder encoder = new FileEncoder(new LZ77Encoder(CODING_WINDOW_SIZE, CODING_LOOKAHEAD_SIZE),
+                            LZ77OutputStream.DEFAULT_BLOCK_SIZE, null, 0, coding);
+
+                    double encodingTime = encoder.encodeFile(file.getPath(), compressedPath);
+                    double decodingTime = decoder.decodeFile(compressedPath, decompressedPath) / 1_000_000;
+                    verifyFileIntegrity(file.getPath(), decompressedPath);
+
+                    Map<String, Double> metricsMap = metrics.calculateMetrics(file.getPath(), compressedPath);
+                    metricsByCoding.put(coding.name(), metricsMap);
+
+                    String csvLine = String.format("%s,%s,%d,%d,%.4f,%.2f,%.2f",
+                            file.getName(),
+                            coding.name(),
+                            metricsMap.get("originalSize").longValue(),
+                            metricsMap.get("compressedSize").longValue(),
+                            metricsMap.get("averageCodeLength"),
+                            encodingTime,
+                            decodingTime);
+                    Files.writeString(csvPath, csvLine + System.lineSeparator(), StandardOpenOption.APPEND);
+                }
+
+                System.out.println("\n" + file.getName());
+                System.out.print(metrics.formatCodingComparison(metricsByCoding, TokenCoding.PACKED.name()));
+            } catch (IOException e) {
+                System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compresses every file at each compression level, verifies the output and writes the
+     * results to levels.csv. Corpus-wide totals are printed per level, marking the levels on
+     * the speed/ratio Pareto frontier, i.e. those no other level beats on both speed and ratio.
+     *
+     * @param files      The corpus files to encode.
+     * @param resultsDir The directory where the CSV file and compressed files will be saved.
+     */
+    private static void benchmarkLevels(File[] files, String resultsDir) {
+        System.out.println("\n=== Comparing compression levels ===");
+
+        String levelDir = resultsDir + "/levels";
+        Path csvPath = Paths.get(resultsDir + "/levels.csv");
+        try {
+            Files.createDirectories(Paths.get(levelDir));
+            Files.writeString(csvPath, "Filename,Level,Window Size,Max Match,Min Match,Search Depth,Parsing,"
+                    + "Original Size (bytes),Compressed Size (bytes),Compression Ratio,Encoding Time (ms),"
+                    + "Decoding Time (ms)\n");
+        } catch (IOException e) {
+            System.err.println("Error creating level comparison file: " + e.getMessage());
+            return;
+        }
+
+        CompressionLevel[] levels = CompressionLevel.values();
+        double[] ratios = new double[levels.length];
+        double[] encodeSpeeds = new double[levels.length];
+        CompressionMetrics metrics = new CompressionMetrics();
+        FileDecoder decoder = new FileDecoder(new LZ77Decoder());
+        for (int i = 0; i < levels.length; i++) {
+            CompressionLevel level = levels[i];
+            FileEncoder encoder = new FileEncoder(level.newEncoder());
+
+            // Encode the largest file untimed first, so JIT compilation is not charged to the level
+            File warmupFile = files[0];
+            for (File file : files) {
+                if (file.length() > warmupFile.length()) {
+                    warmupFile = file;
+                }
+            }
+            try {
+                encoder.encodeFile(warmupFile.getPath(), levelDir + "/warmup.lz77");
+            } catch (IOException e) {
+                System.err.println("Error warming up level " + level + ": " + e.getMessage());
+            }
+
+            long originalTotal = 0;
+            long compressedTotal = 0;
+            double encodingTotal = 0;
+            for (File file : files) {
+                try {
+                    String compressedPath = levelDir + "/" + file.getName() + ".l" + level + ".lz77";
+                    String decompressedPath = levelDir + "/" + file.getName() + ".decoded";
+
+                    double encodingTime = encoder.encodeFile(file.getPath(), compressedPath);
+                    double decodingTime = decoder.decodeFile(compressedPath, decompressedPath) / 1_000_000;
+                    verifyFileIntegrity(file.getPath(), decompressedPath);
+
+                    Map<String, Double> metricsMap = metrics.calculateMetrics(file.getPath(), compressedPath);
+                    originalTotal += metricsMap.get("originalSize").longValue();
+                    compressedTotal += metricsMap.get("compressedSize").longValue();
+                    encodingTotal += encodingTime;
+
+                    String csvLine = String.format("%s,%s,%d,%d,%d,%d,%s,%d,%d,%.4f,%.2f,%.2f",
+                            file.getName(),
+                            level,
+                            level.getWindowSize(),
+                            level.getMaxMatchLength(),
+                            level.getMinMatchLength(),
+                            level.getSearchDepth(),
+                            level.getParsingStrategy(),
+                            metricsMap.get("originalSize").longValue(),
+                            metricsMap.get("compressedSize").longValue(),
+                            metricsMap.get("compressionRatio"),
+                            encodingTime,
+                            decodingTime);
+                    Files.writeString(csvPath, csvLine + System.lineSeparator(), StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            ratios[i] = compressedTotal == 0 ? 0 : (double) originalTotal / compressedTotal;
+            encodeSpeeds[i] = encodingTotal == 0 ? 0 : originalTotal / 1e6 / (encodingTotal / 1000);
+        }
+
+        System.out.println("------------------------------------------------------------");
+        System.out.printf("%-10s %-15s %-15s %-15s\n", "Level", "Ratio", "Encode (MB/s)", "Pareto");
+        System.out.println("------------------------------------------------------------");
+        for (int i = 0; i < levels.length; i++) {
+            boolean dominated = false;
+            for (int j = 0; j < levels.length; j++) {
+                if (ratios[j] >= ratios[i] && encodeSpeeds[j] >= encodeSpeeds[i]
+                        && (ratios[j] > ratios[i] || encodeSpeeds[j] > encodeSpeeds[i])) {
+                    dominated = true;
+                    break;
+                }
+            }
+            System.out.printf("%-10s %-15.4f %-15.2f %-15s\n", levels[i], ratios[i], encodeSpeeds[i],
+                    dominated ? "dominated" : "frontier");
+        }
+    }
+
+    /**
+     * Compresses every file at the default level and records its full statistics: throughput,
+     * per-block latency percentiles, literal and match counts, and allocation per MB. Results
+     * go to profile.csv.
+     *
+     * @param files      The corpus files to profile.
+     * @param resultsDir The directory where the CSV file and compressed files will be saved.
+     */
+    private static void profileDefaultLevel(File[] files, String resultsDir) {
+        CompressionLevel level = CompressionLevel.DEFAULT;
+        System.out.println("\n=== Profiling compression level " + level + " ===");
+
+        String profileDir = resultsDir + "/profile";
+        Path csvPath = Paths.get(resultsDir + "/profile.csv");
+        CompressionMetrics metrics = new CompressionMetrics();
+        try {
+            Files.createDirectories(Paths.get(profileDir));
+            Files.writeString(csvPath, metrics.statisticsCsvHeader() + "\n");
+        } catch (IOException e) {
+            System.err.println("Error creating profile file: " + e.getMessage());
+            return;
+        }
+
+        LZ77Encoder lz77Encoder = level.newEncoder();
+        FileEncoder encoder = new FileEncoder(lz77Encoder);
+        for (int pass = 0; pass < 2; pass++) {
+            // The first pass only warms up the JIT compiler, so its statistics are discarded
+            boolean measured = pass == 1;
+            for (File file : files) {
+                try {
+                    String compressedPath = profileDir + "/" + file.getName() + ".lz77";
+                    encoder.encodeFile(file.getPath(), compressedPath);
+                    CompressionStatistics statistics = metrics.calculateStatistics(file.getPath(), compressedPath,
+                            lz77Encoder, LZ77OutputStream.DEFAULT_BLOCK_SIZE);
+                    if (measured) {
+                        System.out.println("\n" + file.getName());
+                        System.out.print(metrics.formatStatistics(statistics));
+                        Files.writeString(csvPath, metrics.toCsvLine(file.getName(), statistics) + System.lineSeparator(),
+                                StandardOpenOption.APPEND);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
     }
 
     /**
@@ -184,8 +696,9 @@ public class LZ77SilesiaTest {
      *
      * @param originalPath   Path to the original input file.
      * @param decodedPath    Path to the decoded (decompressed) output file.
+     * @return True if the files are identical.
      */
-    private static void verifyFileIntegrity(String originalPath, String decodedPath) {
+    private static boolean verifyFileIntegrity(String originalPath, String decodedPath) {
         try {
             byte[] originalBytes = Files.readAllBytes(Paths.get(originalPath));
             byte[] decodedBytes = Files.readAllBytes(Paths.get(decodedPath));
@@ -193,19 +706,21 @@ public class LZ77SilesiaTest {
             if (originalBytes.length != decodedBytes.length) {
                 System.out.println("  ⚠️ WARNING: File size mismatch - Original: " +
                         originalBytes.length + ", Decoded: " + decodedBytes.length);
-                return;
+                return false;
             }
 
             for (int i = 0; i < originalBytes.length; i++) {
                 if (originalBytes[i] != decodedBytes[i]) {
                     System.out.println("  ⚠️ WARNING: File content mismatch at position " + i);
-                    return;
+                    return false;
                 }
             }
 
             // If we get here, files are identical
+            return true;
         } catch (IOException e) {
             System.out.println("  ⚠️ ERROR verifying file integrity: " + e.getMessage());
+            return false;
         }
     }
 
@@ -213,9 +728,11 @@ public class LZ77SilesiaTest {
      * Generates a basic Markdown report summarizing the test setup and placeholder
      * sections for further analysis of compression performance.
      *
-     * @param resultsDir The directory where the report will be saved.
+     * @param resultsDir     The directory where the report will be saved.
+     * @param windowSizes    The window sizes that were tested.
+     * @param lookAheadSizes The look-ahead buffer sizes that were tested.
      */
-    private static void generateReport(String resultsDir) {
+    private static void generateReport(String resultsDir, int[] windowSizes, int[] lookAheadSizes) {
         try {
             String reportPath = resultsDir + "/report.md";
             StringBuilder report = new StringBuilder();
@@ -223,8 +740,8 @@ public class LZ77SilesiaTest {
             report.append("# LZ77 Compression Algorithm Performance Report\n\n");
             report.append("## Test Configuration\n\n");
             report.append("- Algorithm: LZ77 (Lempel-Ziv 77)\n");
-            report.append("- Window Sizes: ").append(arrayToString(WINDOW_SIZES)).append("\n");
-            report.append("- Look-ahead Buffer Sizes: ").append(arrayToString(LOOKAHEAD_SIZES)).append("\n");
+            report.append("- Window Sizes: ").append(arrayToString(windowSizes)).append("\n");
+            report.append("- Look-ahead Buffer Sizes: ").append(arrayToString(lookAheadSizes)).append("\n");
             report.append("- Test Corpus: Silesia Corpus\n\n");
 
             report.append("## Summary of Results\n\n");
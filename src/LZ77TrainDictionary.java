@@ -0,0 +1,189 @@
+import core.CompressionLevel;
+import core.DictionaryTrainer;
+import core.LZ77Decoder;
+import io.FileDecoder;
+import io.FileEncoder;
+import metrics.CompressionMetrics;
+import model.PresetDictionary;
+import util.CorpusFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trains a preset dictionary from a directory of sample files and writes its raw bytes to a file.
+ * <p>
+ * Every tenth sample is held out of training. Each held-out sample is then compressed with and
+ * without the dictionary, and the gain in compression ratio is reported.
+ */
+public class LZ77TrainDictionary {
+    private static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+    private static final int HOLDOUT_INTERVAL = 10;
+    private static final String USAGE = "Usage: java LZ77TrainDictionary <samples-directory> <dictionary-file>"
+            + " [--size bytes] [--level level] [--segment bytes] [--dmer bytes]";
+
+    /**
+     * Entry point for the dictionary trainer.
+     *
+     * @param args The samples directory and the output file, followed by optional
+     *             {@code --size}, {@code --level}, {@code --segment} and {@code --dmer} values.
+     */
+    public static void main(String[] args) {
+        System.out.println("=== LZ77 Dictionary Trainer ===");
+
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        String samplesPath = args[0];
+        String dictionaryPath = args[1];
+        int dictionarySize = DEFAULT_DICTIONARY_SIZE;
+        CompressionLevel level = CompressionLevel.DEFAULT;
+        int segmentSize = DictionaryTrainer.DEFAULT_SEGMENT_SIZE;
+        int dmerSize = DictionaryTrainer.DEFAULT_DMER_SIZE;
+        DictionaryTrainer trainer;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[++i];
+                switch (args[i - 1]) {
+                    case "--size":
+                        dictionarySize = Integer.parseInt(value);
+                        break;
+                    case "--level":
+                        level = CompressionLevel.parse(value);
+                        break;
+                    case "--segment":
+                        segmentSize = Integer.parseInt(value);
+                        break;
+                    case "--dmer":
+                        dmerSize = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+                }
+            }
+            trainer = new DictionaryTrainer(segmentSize, dmerSize);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        File[] files = CorpusFiles.list(new File(samplesPath));
+        if (files == null) {
+            System.out.println("Error: Invalid samples directory path: " + samplesPath);
+            System.out.println(USAGE);
+            return;
+        }
+        if (files.length < 2) {
+            System.out.println("At least two sample files are needed to train and evaluate a dictionary");
+            return;
+        }
+
+        // Hold out every tenth sample, but always at least one
+        List<File> trainingFiles = new ArrayList<>();
+        List<File> heldOutFiles = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            boolean holdOut = files.length < HOLDOUT_INTERVAL ? i == files.length - 1
+                    : i % HOLDOUT_INTERVAL == HOLDOUT_INTERVAL - 1;
+            (holdOut ? heldOutFiles : trainingFiles).add(files[i]);
+        }
+
+        try {
+            List<byte[]> samples = new ArrayList<>();
+            long trainingBytes = 0;
+            for (File file : trainingFiles) {
+                byte[] sample = Files.readAllBytes(file.toPath());
+                samples.add(sample);
+                trainingBytes += sample.length;
+            }
+
+            System.out.println("Training on " + trainingFiles.size() + " samples (" + trainingBytes
+                    + " bytes), holding out " + heldOutFiles.size());
+            long startTime = System.nanoTime();
+            PresetDictionary dictionary = trainer.train(samples, dictionarySize);
+            long trainingTime = (System.nanoTime() - startTime) / 1_000_000;
+
+            Files.write(Paths.get(dictionaryPath), dictionary.getContent());
+            System.out.printf("Dictionary of %d bytes (ID %08x) written to %s in %d ms%n",
+                    dictionary.size(), dictionary.getId(), dictionaryPath, trainingTime);
+
+            evaluate(heldOutFiles, level, dictionary);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error training dictionary: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compresses each held-out sample with and without the dictionary, verifies that it decodes,
+     * and prints the totals.
+     */
+    private static void evaluate(List<File> heldOutFiles, CompressionLevel level, PresetDictionary dictionary)
+            throws IOException {
+        FileEncoder plainEncoder = new FileEncoder(level.newEncoder());
+        FileEncoder dictionaryEncoder = new FileEncoder(level.newEncoder(dictionary));
+        FileDecoder plainDecoder = new FileDecoder(new LZ77Decoder());
+        FileDecoder dictionaryDecoder = new FileDecoder(new LZ77Decoder(dictionary));
+        CompressionMetrics metrics = new CompressionMetrics();
+
+        Path compressed = Files.createTempFile("lz77-dictionary", ".lz77");
+        Path decompressed = Files.createTempFile("lz77-dictionary", ".decoded");
+        long originalSize = 0;
+        long plainSize = 0;
+        long dictionarySize = 0;
+        try {
+            System.out.println("\nEvaluating on held-out samples at level " + level + "...");
+            System.out.println("------------------------------------------------------------");
+            System.out.printf("%-30s %-15s %-15s %-15s\n", "Filename", "Original", "No dictionary", "Dictionary");
+            System.out.println("------------------------------------------------------------");
+            for (File file : heldOutFiles) {
+                long plain = compressedSize(plainEncoder, plainDecoder, file, compressed, decompressed);
+                long primed = compressedSize(dictionaryEncoder, dictionaryDecoder, file, compressed, decompressed);
+                System.out.printf("%-30s %-15d %-15d %-15d\n", file.getName(), file.length(), plain, primed);
+
+                originalSize += file.length();
+                plainSize += plain;
+                dictionarySize += primed;
+            }
+        } finally {
+            Files.deleteIfExists(compressed);
+            Files.deleteIfExists(decompressed);
+        }
+
+        Map<String, Map<String, Double>> metricsByCoding = new LinkedHashMap<>();
+        metricsByCoding.put("no dictionary", metrics.calculateMetrics(originalSize, plainSize));
+        metricsByCoding.put("dictionary", metrics.calculateMetrics(originalSize, dictionarySize));
+        System.out.println("------------------------------------------------------------");
+        System.out.print(metrics.formatCodingComparison(metricsByCoding, "no dictionary"));
+        System.out.printf("Compression ratio: %.4f without, %.4f with the dictionary\n",
+                metricsByCoding.get("no dictionary").get("compressionRatio"),
+                metricsByCoding.get("dictionary").get("compressionRatio"));
+    }
+
+    /**
+     * Compresses a file, checks that it decompresses to the original, and returns the compressed
+     * size.
+     */
+    private static long compressedSize(FileEncoder encoder, FileDecoder decoder, File file, Path compressed,
+                                       Path decompressed) throws IOException {
+        encoder.encodeFile(file.getPath(), compressed.toString());
+        decoder.decodeFile(compressed.toString(), decompressed.toString());
+        if (!Arrays.equals(Files.readAllBytes(file.toPath()), Files.readAllBytes(decompressed))) {
+            throw new IOException("Round trip failed for " + file.getName());
+        }
+        return Files.size(compressed);
+    }
+}
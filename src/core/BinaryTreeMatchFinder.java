@@ -0,0 +1,271 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Match finder that keeps the window in binary search trees, in the style of LZMA's BT4.
+ * <p>
+ * A hash of the next four bytes selects the root of a tree holding every window position
+ * with that hash, ordered lexicographically by the data that follows it. Inserting the current
+ * position walks down from the root, so a single descent yields the longest match together with
+ * every shorter candidate met along the way, in roughly O(log window) comparisons. A separate
+ * three-byte hash table supplies the most recent short match, which the tree cannot see.
+ * <p>
+ * Tree nodes live in a circular buffer of {@code windowSize + 1} entries, costing eight bytes
+ * per window position.
+ */
+public class BinaryTreeMatchFinder implements MatchFinder {
+    public static final int DEFAULT_MAX_DEPTH = 48;
+
+    private static final int HASH3_BITS = 16;
+    private static final int MAX_HASH4_BITS = 20;
+    private static final int MIN_HASH4_BITS = 16;
+    private static final int NO_POSITION = -1;
+    private static final int DEFAULT_LENGTH_LIMIT = 273;
+
+    private final int maxDepth;
+
+    private byte[] input;
+    private int start;
+    private int end;
+    private int windowSize;
+    private int cyclicSize;
+    private int[] head3;
+    private int[] head4;
+    private int hash4Bits;
+    private int[] son;
+    private int lengthLimit;
+    private int matchDistance;
+    private int probeCount;
+    private int[] scratchLengths = new int[0];
+    private int[] scratchDistances = new int[0];
+
+    public BinaryTreeMatchFinder() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Constructs a binary-tree match finder.
+     *
+     * @param maxDepth the maximum number of tree nodes visited per position
+     */
+    public BinaryTreeMatchFinder(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Tree depth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void init(byte[] input, int start, int end, int windowSize, int minMatchLength) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.cyclicSize = windowSize + 1;
+        this.lengthLimit = DEFAULT_LENGTH_LIMIT;
+        this.matchDistance = 0;
+
+        if (son == null || son.length != 2 * cyclicSize) {
+            son = new int[2 * cyclicSize];
+        }
+        if (head3 == null) {
+            head3 = new int[1 << HASH3_BITS];
+        }
+
+        // Scale the tree roots with the window, within sensible bounds
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, windowSize - 1));
+        hash4Bits = Math.max(MIN_HASH4_BITS, Math.min(MAX_HASH4_BITS, bits));
+        if (head4 == null || head4.length != 1 << hash4Bits) {
+            head4 = new int[1 << hash4Bits];
+        }
+
+        Arrays.fill(head3, NO_POSITION);
+        Arrays.fill(head4, NO_POSITION);
+    }
+
+    @Override
+    public void extend(int end) {
+        // The last positions of the old input were too close to its end to be hashed
+        int first = Math.max(start, this.end - 3);
+        int last = this.end;
+        this.end = end;
+        skip(first, last - first);
+    }
+
+    @Override
+    public int findMatch(int pos, int maxLength) {
+        if (scratchLengths.length < maxLength) {
+            scratchLengths = new int[maxLength];
+            scratchDistances = new int[maxLength];
+        }
+        int count = findMatches(pos, maxLength, scratchLengths, scratchDistances);
+        if (count == 0) {
+            return 0;
+        }
+        matchDistance = scratchDistances[count - 1];
+        return scratchLengths[count - 1];
+    }
+
+    @Override
+    public int findMatches(int pos, int maxLength, int[] lengths, int[] distances) {
+        matchDistance = 0;
+        if (CodecListener.ENABLED) {
+            probeCount = 0;
+        }
+        int available = end - pos;
+        if (available < 4) {
+            return 0;
+        }
+        if (pos + maxLength < end - 1) {
+            // Skipped positions are compared as far as searched ones, unless that was cut short
+            lengthLimit = maxLength;
+        }
+        int lenLimit = Math.min(maxLength, available);
+
+        int count = 0;
+        int bestLength = 0;
+
+        // Short candidate from the three-byte table
+        int h3 = hash3(pos);
+        int candidate = head3[h3];
+        head3[h3] = pos;
+        if (candidate > NO_POSITION && pos - candidate <= windowSize) {
+            if (CodecListener.ENABLED) {
+                probeCount++;
+            }
+            int matchLength = 0;
+            while (matchLength < lenLimit && input[candidate + matchLength] == input[pos + matchLength]) {
+                matchLength++;
+            }
+            if (matchLength >= 3) {
+                bestLength = matchLength;
+                lengths[count] = matchLength;
+                distances[count] = pos - candidate;
+                count++;
+            }
+        }
+
+        int h4 = hash4(pos);
+        candidate = head4[h4];
+        head4[h4] = pos;
+        count = descend(pos, candidate, lenLimit, bestLength, count, lengths, distances);
+
+        if (count > 0) {
+            matchDistance = distances[count - 1];
+        }
+        return count;
+    }
+
+    @Override
+    public int getMatchDistance() {
+        return matchDistance;
+    }
+
+    @Override
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    @Override
+    public void skip(int pos, int count) {
+        int last = Math.min(pos + count, end - 3);
+        for (int i = pos; i < last; i++) {
+            head3[hash3(i)] = i;
+            int h4 = hash4(i);
+            int candidate = head4[h4];
+            head4[h4] = i;
+            descend(i, candidate, Math.min(lengthLimit, end - i), Integer.MAX_VALUE, 0, null, null);
+        }
+    }
+
+    @Override
+    public MatchFinder newInstance() {
+        return new BinaryTreeMatchFinder(maxDepth);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Inserts {@code pos} as the new root of its tree, re-linking the old nodes to either side
+     * and reporting matches longer than {@code bestLength} on the way down.
+     */
+    private int descend(int pos, int candidate, int lenLimit, int bestLength, int count,
+                        int[] lengths, int[] distances) {
+        int node = (pos % cyclicSize) << 1;
+        int ptrLeft = node;
+        int ptrRight = node + 1;
+        int lenLeft = 0;
+        int lenRight = 0;
+        int depth = maxDepth;
+
+        while (true) {
+            int delta = pos - candidate;
+            if (candidate <= NO_POSITION || delta > windowSize || depth-- == 0) {
+                son[ptrLeft] = NO_POSITION;
+                son[ptrRight] = NO_POSITION;
+                return count;
+            }
+            if (CodecListener.ENABLED) {
+                probeCount++;
+            }
+
+            int pair = (candidate % cyclicSize) << 1;
+            int matchLength = Math.min(lenLeft, lenRight);
+
+            if (input[candidate + matchLength] == input[pos + matchLength]) {
+                while (++matchLength < lenLimit && input[candidate + matchLength] == input[pos + matchLength]) {
+                    // extend the match
+                }
+
+                if (matchLength > bestLength) {
+                    bestLength = matchLength;
+                    if (lengths != null) {
+                        lengths[count] = matchLength;
+                        distances[count] = delta;
+                    }
+                    count++;
+                }
+
+                if (matchLength == lenLimit) {
+                    if (pos + lenLimit < end - 1) {
+                        // Equal as far as we can compare: the new node takes over the old one's subtrees
+                        son[ptrLeft] = son[pair];
+                        son[ptrRight] = son[pair + 1];
+                    } else {
+                        // Cut short by the end of the input, which may still be extended: how the
+                        // subtrees order against the new node is unknown, so they are dropped
+                        son[ptrLeft] = NO_POSITION;
+                        son[ptrRight] = NO_POSITION;
+                    }
+                    return count;
+                }
+            }
+
+            if ((input[candidate + matchLength] & 0xFF) < (input[pos + matchLength] & 0xFF)) {
+                son[ptrLeft] = candidate;
+                ptrLeft = pair + 1;
+                candidate = son[ptrLeft];
+                lenLeft = matchLength;
+            } else {
+                son[ptrRight] = candidate;
+                ptrRight = pair;
+                candidate = son[ptrRight];
+                lenRight = matchLength;
+            }
+        }
+    }
+
+    private int hash3(int pos) {
+        int h = ((input[pos] & 0xFF) << 16) ^ ((input[pos + 1] & 0xFF) << 8) ^ (input[pos + 2] & 0xFF);
+        return (h * 0x9E3779B1) >>> (32 - HASH3_BITS);
+    }
+
+    private int hash4(int pos) {
+        int h = ((input[pos] & 0xFF) << 24) ^ ((input[pos + 1] & 0xFF) << 16)
+                ^ ((input[pos + 2] & 0xFF) << 8) ^ (input[pos + 3] & 0xFF);
+        return (h * 0x9E3779B1) >>> (32 - hash4Bits);
+    }
+}
@@ -0,0 +1,91 @@
+package core;
+
+/**
+ * Match finder that compares the look-ahead buffer against every position in the window.
+ * <p>
+ * Runs in O(window * match length) per position; kept as the reference implementation.
+ */
+public class BruteForceMatchFinder implements MatchFinder {
+    private byte[] input;
+    private int start;
+    private int windowSize;
+    private int matchDistance;
+    private int candidateCount;
+    private int probeCount;
+
+    @Override
+    public void init(byte[] input, int start, int end, int windowSize, int minMatchLength) {
+        this.input = input;
+        this.start = start;
+        this.windowSize = windowSize;
+        this.matchDistance = 0;
+    }
+
+    @Override
+    public void extend(int end) {
+        // Nothing is indexed
+    }
+
+    @Override
+    public int findMatch(int pos, int maxLength) {
+        return search(pos, maxLength, null, null);
+    }
+
+    @Override
+    public int findMatches(int pos, int maxLength, int[] lengths, int[] distances) {
+        search(pos, maxLength, lengths, distances);
+        return candidateCount;
+    }
+
+    private int search(int pos, int maxLength, int[] lengths, int[] distances) {
+        int maxMatchLength = 0;
+        candidateCount = 0;
+        matchDistance = 0;
+
+        int actualWindowSize = Math.min(pos - start, windowSize);
+        if (CodecListener.ENABLED) {
+            probeCount = Math.max(0, actualWindowSize);
+        }
+
+        for (int i = 1; i <= actualWindowSize; i++) {
+            int windowPos = pos - i;
+            int matchLength = 0;
+
+            while (matchLength < maxLength && input[windowPos + matchLength] == input[pos + matchLength]) {
+                matchLength++;
+            }
+
+            if (matchLength > maxMatchLength) {
+                maxMatchLength = matchLength;
+                matchDistance = i;
+                if (lengths != null) {
+                    lengths[candidateCount] = matchLength;
+                    distances[candidateCount] = i;
+                }
+                candidateCount++;
+            }
+        }
+
+        return maxMatchLength;
+    }
+
+    @Override
+    public int getMatchDistance() {
+        return matchDistance;
+    }
+
+    @Override
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    @Override
+    public void skip(int pos, int count) {
+        // Nothing is indexed
+    }
+
+    @Override
+    public MatchFinder newInstance() {
+        return new BruteForceMatchFinder();
+    }
+}
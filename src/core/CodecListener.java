@@ -0,0 +1,66 @@
+package core;
+
+import model.TokenBuffer;
+
+/**
+ * Receives events from the hot paths of {@link LZ77Encoder} and {@link LZ77Decoder}, for
+ * monitoring a codec in production.
+ * <p>
+ * Events are only delivered when the JVM runs with {@code -Dlz77.instrumentation=true} (see
+ * {@link #ENABLED}). Without it, every call to a listener and every probe count in the match
+ * finders sits behind a constant false test that the JIT compiler removes, so codecs pay nothing
+ * for the instrumentation, whichever listeners they were built with. Every method does nothing
+ * by default, and codecs built without a listener use {@link #NONE}.
+ * <p>
+ * Encoders created by {@link LZ77Encoder#newInstance()} share their listener, so an
+ * implementation used with concurrent block compression must be thread-safe.
+ */
+public interface CodecListener {
+    /**
+     * Whether codecs report events, read once from the {@code lz77.instrumentation} system
+     * property. False unless the property is {@code true}.
+     */
+    boolean ENABLED = Boolean.getBoolean("lz77.instrumentation");
+
+    /**
+     * The listener that ignores every event.
+     */
+    CodecListener NONE = new CodecListener() {
+    };
+
+    /**
+     * Called after each search of the match finder.
+     *
+     * @param probes the number of candidate positions compared, such as the length of the hash
+     *               chain walked (see {@link MatchFinder#getProbeCount()})
+     */
+    default void onSearch(int probes) {
+    }
+
+    /**
+     * Called after a block has been encoded. A block that is encoded and then stored raw, because
+     * coding did not make it smaller, is reported here and not to {@link #onBlockStored}.
+     *
+     * @param tokens the tokens of the block
+     * @param length the number of input bytes encoded
+     */
+    default void onBlockEncoded(TokenBuffer tokens, int length) {
+    }
+
+    /**
+     * Called when a container block is stored raw without being encoded, because its bytes look
+     * incompressible. Every one of its bytes is a literal.
+     *
+     * @param length the number of input bytes stored
+     */
+    default void onBlockStored(int length) {
+    }
+
+    /**
+     * Called after a block has been decoded, or copied out of a stored container block.
+     *
+     * @param length the number of bytes decoded
+     */
+    default void onBlockDecoded(int length) {
+    }
+}
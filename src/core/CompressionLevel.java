@@ -0,0 +1,155 @@
+package core;
+
+import model.PresetDictionary;
+
+/**
+ * Preset encoder configurations, from {@link #FAST} to {@link #LEVEL_9}, each trading encoding
+ * speed for a smaller output.
+ * <p>
+ * Each level sets the window size, the longest and shortest match, how many candidates the
+ * match finder may examine per position and the parsing strategy. The table keeps only
+ * configurations on the speed/ratio Pareto frontier of a parameter sweep: no other configuration
+ * tried was both faster and smaller. {@code LZ77SilesiaTest --levels} measures every level on a
+ * corpus so the table can be checked against new data.
+ */
+public enum CompressionLevel {
+    FAST(0, 32 * 1024, 32, 3, 1, ParsingStrategy.GREEDY),
+    LEVEL_1(1, 64 * 1024, 32, 3, 4, ParsingStrategy.GREEDY),
+    LEVEL_2(2, 128 * 1024, 128, 4, 4, ParsingStrategy.GREEDY),
+    LEVEL_3(3, 128 * 1024, 128, 4, 16, ParsingStrategy.GREEDY),
+    LEVEL_4(4, 256 * 1024, 128, 4, 16, ParsingStrategy.GREEDY),
+    LEVEL_5(5, 256 * 1024, 128, 4, 16, ParsingStrategy.LAZY),
+    LEVEL_6(6, 256 * 1024, 258, 4, 64, ParsingStrategy.LAZY),
+    LEVEL_7(7, 1024 * 1024, 258, 4, 64, ParsingStrategy.LAZY),
+    LEVEL_8(8, 1024 * 1024, 128, 4, 16, ParsingStrategy.OPTIMAL),
+    LEVEL_9(9, 4 * 1024 * 1024, 258, 4, 48, ParsingStrategy.OPTIMAL);
+
+    /**
+     * The level used when none is given.
+     */
+    public static final CompressionLevel DEFAULT = LEVEL_6;
+
+    private final int level;
+    private final int windowSize;
+    private final int maxMatchLength;
+    private final int minMatchLength;
+    private final int searchDepth;
+    private final ParsingStrategy parsingStrategy;
+
+    CompressionLevel(int level, int windowSize, int maxMatchLength, int minMatchLength, int searchDepth,
+                     ParsingStrategy parsingStrategy) {
+        this.level = level;
+        this.windowSize = windowSize;
+        this.maxMatchLength = maxMatchLength;
+        this.minMatchLength = minMatchLength;
+        this.searchDepth = searchDepth;
+        this.parsingStrategy = parsingStrategy;
+    }
+
+    /**
+     * Returns the level with the given number, where 0 stands for {@link #FAST}.
+     *
+     * @param level the level number, from 0 to 9
+     * @return the compression level
+     */
+    public static CompressionLevel of(int level) {
+        for (CompressionLevel value : values()) {
+            if (value.level == level) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+    }
+
+    /**
+     * Parses a level given as its number or as {@code "fast"}.
+     *
+     * @param text the level number or name
+     * @return the compression level
+     */
+    public static CompressionLevel parse(String text) {
+        String value = text.trim();
+        if (value.equalsIgnoreCase("fast")) {
+            return FAST;
+        }
+        try {
+            return of(Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown compression level: " + text);
+        }
+    }
+
+    /**
+     * Creates an encoder configured for this level.
+     *
+     * @return a new encoder
+     */
+    public LZ77Encoder newEncoder() {
+        return newEncoder(null);
+    }
+
+    /**
+     * Creates an encoder configured for this level whose window is primed with a dictionary.
+     *
+     * @param dictionary the preset dictionary, or null for none
+     * @return a new encoder
+     */
+    public LZ77Encoder newEncoder(PresetDictionary dictionary) {
+        return newEncoder(dictionary, CodecListener.NONE);
+    }
+
+    /**
+     * Creates an encoder configured for this level that reports to an instrumentation listener.
+     *
+     * @param dictionary the preset dictionary, or null for none
+     * @param listener   the listener receiving instrumentation events
+     * @return a new encoder
+     */
+    public LZ77Encoder newEncoder(PresetDictionary dictionary, CodecListener listener) {
+        return new LZ77Encoder(windowSize, maxMatchLength, newMatchFinder(), parsingStrategy, minMatchLength,
+                dictionary, listener);
+    }
+
+    /**
+     * Creates the match finder for this level. Optimal parsing uses every candidate length, which
+     * a binary tree yields in a single descent; the other strategies only need the longest match
+     * and use hash chains.
+     *
+     * @return a new match finder
+     */
+    public MatchFinder newMatchFinder() {
+        if (parsingStrategy == ParsingStrategy.OPTIMAL) {
+            return new BinaryTreeMatchFinder(searchDepth);
+        }
+        return new HashChainMatchFinder(searchDepth);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMaxMatchLength() {
+        return maxMatchLength;
+    }
+
+    public int getMinMatchLength() {
+        return minMatchLength;
+    }
+
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    public ParsingStrategy getParsingStrategy() {
+        return parsingStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return this == FAST ? "fast" : Integer.toString(level);
+    }
+}
@@ -0,0 +1,215 @@
+package core;
+
+import model.PresetDictionary;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds a {@link PresetDictionary} from sample inputs by COVER-style segment selection, in the
+ * fast variant that counts hashed d-mers.
+ * <p>
+ * Every d-mer (run of {@code dmerSize} bytes) is scored by the number of samples it appears in.
+ * The concatenated samples are split into epochs, and from each epoch in turn the segment of
+ * {@code segmentSize} bytes whose distinct d-mers have the highest total score is added to the
+ * dictionary. The d-mers of a chosen segment then score zero, so later segments cover content
+ * the dictionary does not have yet. Segments are placed from the end of the dictionary towards
+ * its start, so the best ones sit closest to the data and are reached with the shortest
+ * distances.
+ */
+public class DictionaryTrainer {
+    public static final int DEFAULT_SEGMENT_SIZE = 1024;
+    public static final int DEFAULT_DMER_SIZE = 8;
+
+    private static final int HASH_BITS = 20;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // Each epoch is worth several segments at least, and is visited this many times on average
+    private static final int MIN_SEGMENTS_PER_EPOCH = 10;
+    private static final int PASSES = 4;
+
+    private final int segmentSize;
+    private final int dmerSize;
+
+    public DictionaryTrainer() {
+        this(DEFAULT_SEGMENT_SIZE, DEFAULT_DMER_SIZE);
+    }
+
+    /**
+     * Constructs a trainer.
+     *
+     * @param segmentSize the number of bytes taken from the samples at a time
+     * @param dmerSize    the length of the byte runs that are counted, from 4 to 8
+     */
+    public DictionaryTrainer(int segmentSize, int dmerSize) {
+        if (dmerSize < 4 || dmerSize > 8) {
+            throw new IllegalArgumentException("d-mer size must be between 4 and 8: " + dmerSize);
+        }
+        if (segmentSize < dmerSize) {
+            throw new IllegalArgumentException("Segment size must be at least the d-mer size: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        this.dmerSize = dmerSize;
+    }
+
+    /**
+     * Trains a dictionary of at most {@code dictionarySize} bytes. The result is smaller when the
+     * samples run out of content shared between them.
+     *
+     * @param samples        the sample inputs, typical of the data the dictionary is for
+     * @param dictionarySize the maximum dictionary size in bytes
+     * @return the trained dictionary
+     * @throws IllegalArgumentException if the samples share no content at all
+     */
+    public PresetDictionary train(List<byte[]> samples, int dictionarySize) {
+        if (dictionarySize <= 0) {
+            throw new IllegalArgumentException("Dictionary size must be positive: " + dictionarySize);
+        }
+        long total = 0;
+        for (byte[] sample : samples) {
+            total += sample.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Samples must total less than 2 GiB: " + total);
+        }
+
+        byte[] data = new byte[(int) total];
+        int[] sampleEnds = new int[samples.size()];
+        int position = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            byte[] sample = samples.get(i);
+            System.arraycopy(sample, 0, data, position, sample.length);
+            position += sample.length;
+            sampleEnds[i] = position;
+        }
+
+        int[] frequencies = countSamplesPerDmer(data, sampleEnds);
+        byte[] dictionary = selectSegments(data, frequencies, dictionarySize);
+        if (dictionary.length == 0) {
+            throw new IllegalArgumentException("Samples share no content to build a dictionary from");
+        }
+        return new PresetDictionary(dictionary);
+    }
+
+    /**
+     * Counts, for every d-mer hash, the number of samples it occurs in. A d-mer repeated within
+     * one sample counts once, so content common to many samples outranks a long run in one.
+     */
+    private int[] countSamplesPerDmer(byte[] data, int[] sampleEnds) {
+        int[] frequencies = new int[1 << HASH_BITS];
+        int[] lastSample = new int[1 << HASH_BITS];
+        Arrays.fill(lastSample, -1);
+
+        int start = 0;
+        for (int sample = 0; sample < sampleEnds.length; sample++) {
+            for (int pos = start; pos + dmerSize <= sampleEnds[sample]; pos++) {
+                int hash = hash(data, pos);
+                if (lastSample[hash] != sample) {
+                    lastSample[hash] = sample;
+                    frequencies[hash]++;
+                }
+            }
+            start = sampleEnds[sample];
+        }
+        return frequencies;
+    }
+
+    /**
+     * Picks the best segment of each epoch in turn until the dictionary is full, or no epoch has a
+     * segment left that scores above zero.
+     */
+    private byte[] selectSegments(byte[] data, int[] frequencies, int dictionarySize) {
+        int dmerCount = Math.max(0, data.length - dmerSize + 1);
+        int epochs = Math.max(1, dictionarySize / segmentSize / PASSES);
+        int epochSize = dmerCount / epochs;
+        if (epochSize < MIN_SEGMENTS_PER_EPOCH * segmentSize) {
+            epochSize = Math.min(MIN_SEGMENTS_PER_EPOCH * segmentSize, dmerCount);
+            epochs = Math.max(1, dmerCount / Math.max(1, epochSize));
+        }
+
+        byte[] dictionary = new byte[dictionarySize];
+        int tail = dictionarySize;
+        int[] active = new int[1 << HASH_BITS];
+        int[] segment = new int[2];
+        int emptyEpochs = 0;
+        for (int epoch = 0; tail > 0 && emptyEpochs < epochs; epoch = (epoch + 1) % epochs) {
+            int from = epoch * epochSize;
+            int to = epoch == epochs - 1 ? dmerCount : from + epochSize;
+            if (bestSegment(data, frequencies, active, from, to, segment) == 0) {
+                emptyEpochs++;
+                continue;
+            }
+            emptyEpochs = 0;
+
+            int length = Math.min(segment[1] - segment[0] + dmerSize - 1, tail);
+            tail -= length;
+            System.arraycopy(data, segment[0], dictionary, tail, length);
+            for (int pos = segment[0]; pos < segment[1]; pos++) {
+                frequencies[hash(data, pos)] = 0;
+            }
+        }
+        return Arrays.copyOfRange(dictionary, tail, dictionarySize);
+    }
+
+    /**
+     * Slides a window of {@code segmentSize} bytes over the d-mers starting in [from, to) and
+     * finds the one whose distinct d-mers score highest. Its d-mer range, trimmed of d-mers that
+     * score nothing at either end, is stored in {@code segment}.
+     *
+     * @return the score of the best segment
+     */
+    private int bestSegment(byte[] data, int[] frequencies, int[] active, int from, int to, int[] segment) {
+        int window = segmentSize - dmerSize + 1;
+        int score = 0;
+        int bestScore = 0;
+        int bestStart = from;
+        int bestEnd = from;
+
+        for (int end = from; end < to; end++) {
+            int hash = hash(data, end);
+            if (active[hash]++ == 0) {
+                score += frequencies[hash];
+            }
+            int start = end - window + 1;
+            if (start > from) {
+                int old = hash(data, start - 1);
+                if (--active[old] == 0) {
+                    score -= frequencies[old];
+                }
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestStart = Math.max(from, start);
+                bestEnd = end + 1;
+            }
+        }
+        // Leave the counts clean for the next epoch
+        for (int pos = Math.max(from, to - window); pos < to; pos++) {
+            active[hash(data, pos)] = 0;
+        }
+
+        while (bestStart < bestEnd && frequencies[hash(data, bestStart)] == 0) {
+            bestStart++;
+        }
+        while (bestEnd > bestStart && frequencies[hash(data, bestEnd - 1)] == 0) {
+            bestEnd--;
+        }
+        segment[0] = bestStart;
+        segment[1] = bestEnd;
+        return bestScore;
+    }
+
+    private int hash(byte[] data, int pos) {
+        long value = 0;
+        for (int i = 0; i < dmerSize; i++) {
+            value |= (data[pos + i] & 0xFFL) << (8 * i);
+        }
+        return (int) ((value * HASH_MULTIPLIER) >>> (64 - HASH_BITS));
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getDmerSize() {
+        return dmerSize;
+    }
+}
@@ -0,0 +1,182 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Match finder that chains together window positions sharing the same leading bytes.
+ * <p>
+ * A hash of the next {@code minMatchLength} bytes selects a chain head in {@code head};
+ * {@code prev} links each position to the previous one with the same hash and is used as a
+ * circular buffer sized to the window. Only candidates on the chain are compared, and at most
+ * {@code maxChainDepth} of them, so the cost per position no longer grows with the window size.
+ */
+public class HashChainMatchFinder implements MatchFinder {
+    public static final int DEFAULT_MAX_CHAIN_DEPTH = 256;
+
+    private static final int HASH_BITS = 16;
+    private static final int HASH_SIZE = 1 << HASH_BITS;
+    private static final int NO_POSITION = -1;
+
+    private final int maxChainDepth;
+
+    private byte[] input;
+    private int start;
+    private int end;
+    private int windowSize;
+    private int minMatchLength;
+    private int[] head;
+    private int[] prev;
+    private int prevMask;
+    private int matchDistance;
+    private int candidateCount;
+    private int probeCount;
+
+    public HashChainMatchFinder() {
+        this(DEFAULT_MAX_CHAIN_DEPTH);
+    }
+
+    /**
+     * Constructs a hash-chain match finder.
+     *
+     * @param maxChainDepth the maximum number of candidates compared per position
+     */
+    public HashChainMatchFinder(int maxChainDepth) {
+        if (maxChainDepth < 1) {
+            throw new IllegalArgumentException("Chain depth must be positive: " + maxChainDepth);
+        }
+        this.maxChainDepth = maxChainDepth;
+    }
+
+    @Override
+    public void init(byte[] input, int start, int end, int windowSize, int minMatchLength) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.minMatchLength = Math.max(1, minMatchLength);
+        this.matchDistance = 0;
+
+        // A power of two larger than the window, so a slot is never reused while still reachable
+        int prevSize = Integer.highestOneBit(Math.max(1, windowSize)) << 1;
+        if (prev == null || prev.length != prevSize) {
+            prev = new int[prevSize];
+        }
+        if (head == null) {
+            head = new int[HASH_SIZE];
+        }
+        prevMask = prevSize - 1;
+        Arrays.fill(head, NO_POSITION);
+    }
+
+    @Override
+    public void extend(int end) {
+        // The last positions of the old input were too close to its end to be hashed
+        int first = Math.max(start, this.end - minMatchLength + 1);
+        int last = this.end;
+        this.end = end;
+        skip(first, last - first);
+    }
+
+    @Override
+    public int findMatch(int pos, int maxLength) {
+        return search(pos, maxLength, null, null);
+    }
+
+    @Override
+    public int findMatches(int pos, int maxLength, int[] lengths, int[] distances) {
+        search(pos, maxLength, lengths, distances);
+        return candidateCount;
+    }
+
+    private int search(int pos, int maxLength, int[] lengths, int[] distances) {
+        matchDistance = 0;
+        candidateCount = 0;
+        if (CodecListener.ENABLED) {
+            probeCount = 0;
+        }
+        if (pos + minMatchLength > end) {
+            return 0;
+        }
+
+        int hash = hash(pos);
+        int candidate = head[hash];
+        insert(pos, hash);
+
+        int limit = pos - windowSize;
+        int bestLength = 0;
+        int depth = maxChainDepth;
+        int probes = 0;
+
+        // Candidates come out nearest first, so ties keep the smallest distance
+        while (candidate > NO_POSITION && candidate >= limit && depth-- > 0) {
+            if (CodecListener.ENABLED) {
+                probes++;
+            }
+            if (input[candidate + bestLength] == input[pos + bestLength]) {
+                int matchLength = 0;
+                while (matchLength < maxLength && input[candidate + matchLength] == input[pos + matchLength]) {
+                    matchLength++;
+                }
+
+                if (matchLength > bestLength) {
+                    bestLength = matchLength;
+                    matchDistance = pos - candidate;
+                    if (lengths != null) {
+                        lengths[candidateCount] = matchLength;
+                        distances[candidateCount] = matchDistance;
+                    }
+                    candidateCount++;
+                    if (matchLength == maxLength) {
+                        break;
+                    }
+                }
+            }
+            candidate = prev[candidate & prevMask];
+        }
+
+        if (CodecListener.ENABLED) {
+            probeCount = probes;
+        }
+        return bestLength;
+    }
+
+    @Override
+    public int getMatchDistance() {
+        return matchDistance;
+    }
+
+    @Override
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    @Override
+    public void skip(int pos, int count) {
+        int last = Math.min(pos + count, end - minMatchLength + 1);
+        for (int i = pos; i < last; i++) {
+            insert(i, hash(i));
+        }
+    }
+
+    @Override
+    public MatchFinder newInstance() {
+        return new HashChainMatchFinder(maxChainDepth);
+    }
+
+    public int getMaxChainDepth() {
+        return maxChainDepth;
+    }
+
+    private void insert(int pos, int hash) {
+        prev[pos & prevMask] = head[hash];
+        head[hash] = pos;
+    }
+
+    private int hash(int pos) {
+        int h = 0;
+        for (int i = 0; i < minMatchLength; i++) {
+            h = (h << 8) ^ (input[pos + i] & 0xFF);
+        }
+        return (h * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+}
@@ -1,6 +1,10 @@
 package core;
 
 import model.LZ77Token;
+import model.PresetDictionary;
+import model.TokenBuffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -21,6 +25,56 @@ public class LZ77Codec {
         decoder = new LZ77Decoder();
     }
 
+    /**
+     * Constructs an LZ77Codec configured by a preset compression level.
+     *
+     * @param level the compression level
+     */
+    public LZ77Codec(CompressionLevel level) {
+        encoder = level.newEncoder();
+        decoder = new LZ77Decoder();
+    }
+
+    /**
+     * Constructs an LZ77Codec configured by a preset compression level whose encoder and decoder
+     * share a preset dictionary, for inputs too small to compress well on their own.
+     *
+     * @param level      the compression level
+     * @param dictionary the dictionary priming the window
+     */
+    public LZ77Codec(CompressionLevel level, PresetDictionary dictionary) {
+        encoder = level.newEncoder(dictionary);
+        decoder = new LZ77Decoder(dictionary);
+    }
+
+    /**
+     * Constructs an LZ77Codec that searches the window with the given match finder,
+     * e.g. a {@link BinaryTreeMatchFinder} for high-ratio archival use.
+     *
+     * @param windowSize     the size of the sliding window
+     * @param lookAheadSize  the size of the look-ahead buffer
+     * @param matchFinder    the strategy used to find back-references
+     */
+    public LZ77Codec(int windowSize, int lookAheadSize, MatchFinder matchFinder) {
+        encoder = new LZ77Encoder(windowSize, lookAheadSize, matchFinder);
+        decoder = new LZ77Decoder();
+    }
+
+    /**
+     * Constructs an LZ77Codec that searches the window with the given match finder and chooses
+     * matches with the given parsing strategy, e.g. {@link ParsingStrategy#OPTIMAL} to trade
+     * encoding speed for a smaller output.
+     *
+     * @param windowSize      the size of the sliding window
+     * @param lookAheadSize   the size of the look-ahead buffer
+     * @param matchFinder     the strategy used to find back-references
+     * @param parsingStrategy how matches are chosen
+     */
+    public LZ77Codec(int windowSize, int lookAheadSize, MatchFinder matchFinder, ParsingStrategy parsingStrategy) {
+        encoder = new LZ77Encoder(windowSize, lookAheadSize, matchFinder, parsingStrategy);
+        decoder = new LZ77Decoder();
+    }
+
     /**
      * Encodes the input string into a list of LZ77 tokens.
      *
@@ -31,6 +85,50 @@ public class LZ77Codec {
         return encoder.encode(input);
     }
 
+    /**
+     * Encodes a byte array into a list of LZ77 tokens.
+     *
+     * @param input the bytes to encode
+     * @return a list of encoded tokens
+     */
+    public List<LZ77Token> encode(byte[] input) {
+        return encoder.encode(input);
+    }
+
+    /**
+     * Encodes a range of a byte array into a list of LZ77 tokens.
+     *
+     * @param input  the array holding the bytes to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @return a list of encoded tokens
+     */
+    public List<LZ77Token> encode(byte[] input, int offset, int length) {
+        return encoder.encode(input, offset, length);
+    }
+
+    /**
+     * Encodes a range of a byte array into a reusable token buffer.
+     *
+     * @param input  the array holding the bytes to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @param tokens the buffer receiving the encoded tokens; cleared first
+     */
+    public void encode(byte[] input, int offset, int length, TokenBuffer tokens) {
+        encoder.encode(input, offset, length, tokens);
+    }
+
+    /**
+     * Encodes the bytes remaining in a buffer into a list of LZ77 tokens.
+     *
+     * @param input the buffer to encode
+     * @return a list of encoded tokens
+     */
+    public List<LZ77Token> encode(ByteBuffer input) {
+        return encoder.encode(input);
+    }
+
     /**
      * Decodes a list of LZ77 tokens back into a string.
      *
@@ -41,6 +139,51 @@ public class LZ77Codec {
         return decoder.decode(output);
     }
 
+    /**
+     * Decodes a list of LZ77 tokens back into a byte array.
+     *
+     * @param output the list of tokens to decode
+     * @return the decoded bytes
+     */
+    public byte[] decodeBytes(List<LZ77Token> output) {
+        return decoder.decodeBytes(output);
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into a caller-supplied array.
+     *
+     * @param tokens the list of tokens to decode
+     * @param output the array receiving the decoded bytes
+     * @param offset the index at which to write the first decoded byte
+     * @return the number of bytes written
+     */
+    public int decode(List<LZ77Token> tokens, byte[] output, int offset) {
+        return decoder.decode(tokens, output, offset);
+    }
+
+    /**
+     * Decodes a token buffer into a caller-supplied array.
+     *
+     * @param tokens the tokens to decode
+     * @param output the array receiving the decoded bytes
+     * @param offset the index at which to write the first decoded byte
+     * @return the number of bytes written
+     */
+    public int decode(TokenBuffer tokens, byte[] output, int offset) {
+        return decoder.decode(tokens, output, offset);
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into a caller-supplied buffer.
+     *
+     * @param tokens the list of tokens to decode
+     * @param output the buffer receiving the decoded bytes
+     * @return the number of bytes written
+     */
+    public int decode(List<LZ77Token> tokens, ByteBuffer output) {
+        return decoder.decode(tokens, output);
+    }
+
     /**
      * Verifies the integrity of the encoding and decoding process.
      *
@@ -53,6 +196,18 @@ public class LZ77Codec {
         return output.equals(input);
     }
 
+    /**
+     * Verifies the integrity of the encoding and decoding process on binary data.
+     *
+     * @param input the original bytes
+     * @return true if the decoded output matches the input; false otherwise
+     */
+    public boolean verifyIntegrity(byte[] input) {
+        List<LZ77Token> tokens = encode(input);
+        byte[] output = decodeBytes(tokens);
+        return Arrays.equals(output, input);
+    }
+
     public int getWindowSize() {
         return encoder.getWindowSize();
     }
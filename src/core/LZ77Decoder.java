@@ -1,35 +1,321 @@
 package core;
 
 import model.LZ77Token;
+import model.PresetDictionary;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
- * LZ77 Decoder that reconstructs a string from a list of tokens.
+ * LZ77 Decoder that reconstructs a string or a byte sequence from a list of tokens.
+ * <p>
+ * A decoder holding a {@link PresetDictionary} resolves matches that reach back before the start
+ * of the decoded data into the tail of the dictionary, as written by an {@link LZ77Encoder} with
+ * the same dictionary. The {@code decodeBlock} methods instead resolve them into the output array
+ * before the block, as the block container does.
  */
 public class LZ77Decoder {
+    // Matches shorter than this are copied byte by byte, which beats the setup cost of a bulk copy
+    private static final int SHORT_MATCH = 16;
+
+    private final PresetDictionary dictionary;
+    private final CodecListener listener;
+
+    public LZ77Decoder() {
+        this(null);
+    }
+
+    /**
+     * Constructs a decoder for data encoded with a preset dictionary.
+     *
+     * @param dictionary the dictionary the data was encoded with, or null for none
+     */
+    public LZ77Decoder(PresetDictionary dictionary) {
+        this(dictionary, CodecListener.NONE);
+    }
 
     /**
-     * Decodes a list of LZ77 tokens into the original string.
+     * Constructs a decoder that reports each decoded block to a listener.
+     *
+     * @param dictionary the dictionary the data was encoded with, or null for none
+     * @param listener   the listener receiving instrumentation events, or {@link CodecListener#NONE}
+     */
+    public LZ77Decoder(PresetDictionary dictionary, CodecListener listener) {
+        this.dictionary = dictionary;
+        this.listener = listener;
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into the original string, read as UTF-8.
      *
      * @param tokens the list of tokens to decode
      * @return the decoded string
      */
     public String decode(List<LZ77Token> tokens) {
-        StringBuilder output = new StringBuilder();
+        return new String(decodeBytes(tokens), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into a new byte array.
+     *
+     * @param tokens the list of tokens to decode
+     * @return the decoded bytes
+     */
+    public byte[] decodeBytes(List<LZ77Token> tokens) {
+        byte[] output = new byte[decodedLength(tokens)];
+        decode(tokens, output, 0);
+        return output;
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into a caller-supplied buffer, starting at its position.
+     * The position is advanced past the decoded bytes.
+     *
+     * @param tokens the list of tokens to decode
+     * @param output the buffer receiving the decoded bytes
+     * @return the number of bytes written
+     */
+    public int decode(List<LZ77Token> tokens, ByteBuffer output) {
+        if (!output.hasArray()) {
+            byte[] decoded = decodeBytes(tokens);
+            output.put(decoded);
+            return decoded.length;
+        }
+        int written = decode(tokens, output.array(), output.arrayOffset() + output.position());
+        output.position(output.position() + written);
+        return written;
+    }
+
+    /**
+     * Decodes a list of LZ77 tokens into a caller-supplied array.
+     *
+     * @param tokens the list of tokens to decode
+     * @param output the array receiving the decoded bytes; must have room for
+     *               {@link #decodedLength(List)} bytes from {@code offset}
+     * @param offset the index at which to write the first decoded byte
+     * @return the number of bytes written
+     */
+    public int decode(List<LZ77Token> tokens, byte[] output, int offset) {
+        int pos = offset;
 
         for (LZ77Token token : tokens) {
-            if (token.getLength() > 0) {
-                int startPosition = output.length() - token.getDistance();
-                for (int i = 0; i < token.getLength(); i++) {
-                    output.append(output.charAt(startPosition + i));
-                }
+            int length = token.getLength();
+            if (length > 0) {
+                copyMatch(output, offset, pos, token.getDistance(), length, dictionary);
+                pos += length;
             }
 
-            if (token.getNextCharacter() != '\0') {
-                output.append(token.getNextCharacter());
+            output[pos++] = (byte) token.getNextCharacter();
+        }
+
+        return pos - offset;
+    }
+
+    /**
+     * Decodes a token buffer into a new byte array.
+     *
+     * @param tokens the tokens to decode
+     * @return the decoded bytes
+     */
+    public byte[] decodeBytes(TokenBuffer tokens) {
+        byte[] output = new byte[Math.toIntExact(tokens.getDecodedLength())];
+        decode(tokens, output, 0);
+        return output;
+    }
+
+    /**
+     * Decodes a token buffer into a caller-supplied array.
+     *
+     * @param tokens the tokens to decode
+     * @param output the array receiving the decoded bytes; must have room for
+     *               {@link TokenBuffer#getDecodedLength()} bytes from {@code offset}
+     * @param offset the index at which to write the first decoded byte
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if a match reaches before the decoded data and the dictionary
+     */
+    public int decode(TokenBuffer tokens, byte[] output, int offset) {
+        return decode(tokens, output, offset, offset, dictionary);
+    }
+
+    /**
+     * Decodes a block of tokens whose matches may reach back into the output before
+     * {@code offset}, which must already hold the data preceding the block.
+     *
+     * @param tokens the tokens to decode
+     * @param output the array holding the preceding data and receiving the decoded bytes
+     * @param offset the index at which to write the first decoded byte
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if a match reaches outside {@code output}
+     */
+    public int decodeBlock(TokenBuffer tokens, byte[] output, int offset) {
+        return decode(tokens, output, offset, 0, null);
+    }
+
+    private int decode(TokenBuffer tokens, byte[] output, int offset, int historyStart,
+                       PresetDictionary dictionary) {
+        int pos = offset;
+        int count = tokens.size();
+
+        for (int t = 0; t < count; t++) {
+            int length = tokens.getLength(t);
+            if (length > 0) {
+                copyMatch(output, historyStart, pos, tokens.getDistance(t), length, dictionary);
+                pos += length;
             }
+
+            output[pos++] = (byte) tokens.getNextByte(t);
         }
 
-        return output.toString();
+        if (CodecListener.ENABLED) {
+            listener.onBlockDecoded(pos - offset);
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Decodes literal-run sequences into a new byte array.
+     *
+     * @param sequences the sequences to decode
+     * @return the decoded bytes
+     */
+    public byte[] decodeBytes(SequenceBuffer sequences) {
+        byte[] output = new byte[Math.toIntExact(sequences.getDecodedLength())];
+        decode(sequences, output, 0);
+        return output;
+    }
+
+    /**
+     * Decodes literal-run sequences into a caller-supplied array. Each run of literals is copied
+     * in one step, however long it is.
+     *
+     * @param sequences the sequences to decode
+     * @param output    the array receiving the decoded bytes; must have room for
+     *                  {@link SequenceBuffer#getDecodedLength()} bytes from {@code offset}
+     * @param offset    the index at which to write the first decoded byte
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if a match reaches before the decoded data and the dictionary
+     */
+    public int decode(SequenceBuffer sequences, byte[] output, int offset) {
+        return decode(sequences, output, offset, offset, dictionary);
+    }
+
+    /**
+     * Decodes a block of sequences whose matches may reach back into the output before
+     * {@code offset}, which must already hold the data preceding the block.
+     *
+     * @param sequences the sequences to decode
+     * @param output    the array holding the preceding data and receiving the decoded bytes
+     * @param offset    the index at which to write the first decoded byte
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if a match reaches outside {@code output}
+     */
+    public int decodeBlock(SequenceBuffer sequences, byte[] output, int offset) {
+        return decode(sequences, output, offset, 0, null);
+    }
+
+    private int decode(SequenceBuffer sequences, byte[] output, int offset, int historyStart,
+                       PresetDictionary dictionary) {
+        byte[] literals = sequences.getLiterals();
+        int literal = 0;
+        int pos = offset;
+        int count = sequences.size();
+
+        for (int s = 0; s < count; s++) {
+            int literalLength = sequences.getLiteralLength(s);
+            System.arraycopy(literals, literal, output, pos, literalLength);
+            literal += literalLength;
+            pos += literalLength;
+
+            int length = sequences.getMatchLength(s);
+            copyMatch(output, historyStart, pos, sequences.getDistance(s), length, dictionary);
+            pos += length;
+        }
+
+        int trailing = sequences.getTrailingLiteralLength();
+        System.arraycopy(literals, literal, output, pos, trailing);
+        pos += trailing;
+
+        if (CodecListener.ENABLED) {
+            listener.onBlockDecoded(pos - offset);
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Copies a match into the output, taking the bytes it finds before {@code historyStart} from
+     * the tail of the dictionary, if there is one. A match reaching back further than that, or
+     * past the end of the output, is rejected before anything is copied, so corrupt tokens can
+     * neither overrun the array nor pick up stale bytes from an earlier use of it.
+     *
+     * @throws IllegalArgumentException if the distance or length is out of range
+     */
+    private static void copyMatch(byte[] output, int historyStart, int pos, int distance, int length,
+                                  PresetDictionary dictionary) {
+        int history = pos - historyStart;
+        if (distance <= 0 || distance > history + (dictionary != null ? dictionary.size() : 0)) {
+            throw new IllegalArgumentException("Invalid match distance: " + distance);
+        }
+        if (length > output.length - pos) {
+            throw new IllegalArgumentException("Invalid match length: " + length);
+        }
+        if (dictionary != null && distance > history) {
+            int back = distance - history;
+            int fromDictionary = Math.min(back, length);
+            dictionary.copyTo(dictionary.size() - back, output, pos, fromDictionary);
+            pos += fromDictionary;
+            length -= fromDictionary;
+        }
+        copyMatch(output, pos, distance, length);
+    }
+
+    /**
+     * Copies a match of {@code length} bytes starting {@code distance} bytes back to
+     * {@code output[pos]}. A match that does not overlap its source is one bulk copy. An
+     * overlapping match repeats its first {@code distance} bytes, so it is copied in strides that
+     * double each step, each repeating the whole pattern written so far.
+     */
+    private static void copyMatch(byte[] output, int pos, int distance, int length) {
+        int source = pos - distance;
+        if (length < SHORT_MATCH) {
+            for (int i = 0; i < length; i++) {
+                output[pos + i] = output[source + i];
+            }
+        } else if (distance >= length) {
+            System.arraycopy(output, source, output, pos, length);
+        } else {
+            int end = pos + length;
+            while (pos < end) {
+                int stride = Math.min(pos - source, end - pos);
+                System.arraycopy(output, source, output, pos, stride);
+                pos += stride;
+            }
+        }
+    }
+
+    /**
+     * Returns the dictionary matches may refer back into, or null if there is none.
+     */
+    public PresetDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public CodecListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Returns the number of bytes the given tokens decode to.
+     *
+     * @param tokens the list of tokens
+     * @return the decoded length in bytes
+     */
+    public int decodedLength(List<LZ77Token> tokens) {
+        int length = 0;
+        for (LZ77Token token : tokens) {
+            length += token.getLength() + 1;
+        }
+        return length;
     }
 }
@@ -1,72 +1,570 @@
 package core;
 
 import model.LZ77Token;
+import model.PresetDictionary;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
- * LZ77 Encoder that compresses a string into a list of tokens.
+ * LZ77 Encoder that compresses a string or a byte sequence into a list of tokens.
+ * <p>
+ * Every token carries a real next byte: a match is never allowed to swallow the last byte of the
+ * input, so no end-of-input marker is needed and zero bytes round-trip unchanged.
+ * <p>
+ * With a {@link PresetDictionary}, every input encoded by {@link #encode} may refer back into the
+ * tail of the dictionary, as if it had been encoded just before; decode it with an
+ * {@link LZ77Decoder} holding the same dictionary.
  */
 public class LZ77Encoder {
     private final int windowSize;
     private final int lookAheadsize;
-    private final int MIN_MATCH_LENGTH = 3; // Minimum match length to create a back-reference
+    public static final int DEFAULT_MIN_MATCH_LENGTH = 3;
+
+    private final int minMatchLength; // Minimum match length to create a back-reference
+    private final MatchFinder matchFinder;
+    private final ParsingStrategy parsingStrategy;
+    private final PresetDictionary dictionary;
+    private final CodecListener listener;
+
+    // Estimated sizes in bits used by optimal parsing: a literal is a flag and a byte, a match a
+    // flag, its length and distance and the next byte
+    private static final int LITERAL_PRICE = 9;
+    private static final int MATCH_BASE_PRICE = 9;
+    private static final int VALUE_BASE_PRICE = 4;
+    // Optimal parsing works on stretches of at most this many bytes, and takes any match at least
+    // NICE_LENGTH long as soon as it is found
+    private static final int OPTIMAL_CHUNK_SIZE = 1 << 16;
+    private static final int NICE_LENGTH = 128;
+
+    // Scratch space for optimal parsing, allocated on first use
+    private int[] candidateLengths;
+    private int[] candidateDistances;
+    private int[] prices;
+    private int[] choiceLengths;
+    private int[] choiceDistances;
+    // Tokens of the last block encoded into a sequence buffer
+    private TokenBuffer sequenceTokens;
+    // The dictionary tail followed by room for the input, allocated on first use
+    private byte[] primedInput;
+    // The array and range of the last block encoded, which encodeNextBlock continues from
+    private byte[] blockInput;
+    private int blockHistoryStart;
+    private int blockEnd;
 
     public LZ77Encoder(int windowSize, int lookAheadsize) {
+        this(windowSize, lookAheadsize, new HashChainMatchFinder());
+    }
+
+    /**
+     * Constructs an encoder that searches the window with the given match finder.
+     *
+     * @param windowSize    the size of the sliding window
+     * @param lookAheadsize the size of the look-ahead buffer
+     * @param matchFinder   the strategy used to find back-references
+     */
+    public LZ77Encoder(int windowSize, int lookAheadsize, MatchFinder matchFinder) {
+        this(windowSize, lookAheadsize, matchFinder, ParsingStrategy.GREEDY);
+    }
+
+    /**
+     * Constructs an encoder that searches the window with the given match finder and chooses
+     * between the matches it finds with the given parsing strategy.
+     *
+     * @param windowSize      the size of the sliding window
+     * @param lookAheadsize   the size of the look-ahead buffer
+     * @param matchFinder     the strategy used to find back-references
+     * @param parsingStrategy how matches are chosen
+     */
+    public LZ77Encoder(int windowSize, int lookAheadsize, MatchFinder matchFinder, ParsingStrategy parsingStrategy) {
+        this(windowSize, lookAheadsize, matchFinder, parsingStrategy, DEFAULT_MIN_MATCH_LENGTH);
+    }
+
+    /**
+     * Constructs an encoder with every parameter given explicitly.
+     *
+     * @param windowSize      the size of the sliding window
+     * @param lookAheadsize   the size of the look-ahead buffer, i.e. the longest match
+     * @param matchFinder     the strategy used to find back-references
+     * @param parsingStrategy how matches are chosen
+     * @param minMatchLength  the shortest match worth a back-reference
+     */
+    public LZ77Encoder(int windowSize, int lookAheadsize, MatchFinder matchFinder, ParsingStrategy parsingStrategy,
+                       int minMatchLength) {
+        this(windowSize, lookAheadsize, matchFinder, parsingStrategy, minMatchLength, null);
+    }
+
+    /**
+     * Constructs an encoder whose window starts out primed with a preset dictionary.
+     *
+     * @param windowSize      the size of the sliding window
+     * @param lookAheadsize   the size of the look-ahead buffer, i.e. the longest match
+     * @param matchFinder     the strategy used to find back-references
+     * @param parsingStrategy how matches are chosen
+     * @param minMatchLength  the shortest match worth a back-reference
+     * @param dictionary      the dictionary priming the window, or null for none
+     */
+    public LZ77Encoder(int windowSize, int lookAheadsize, MatchFinder matchFinder, ParsingStrategy parsingStrategy,
+                       int minMatchLength, PresetDictionary dictionary) {
+        this(windowSize, lookAheadsize, matchFinder, parsingStrategy, minMatchLength, dictionary, CodecListener.NONE);
+    }
+
+    /**
+     * Constructs an encoder that reports its searches and blocks to a listener.
+     *
+     * @param windowSize      the size of the sliding window
+     * @param lookAheadsize   the size of the look-ahead buffer, i.e. the longest match
+     * @param matchFinder     the strategy used to find back-references
+     * @param parsingStrategy how matches are chosen
+     * @param minMatchLength  the shortest match worth a back-reference
+     * @param dictionary      the dictionary priming the window, or null for none
+     * @param listener        the listener receiving instrumentation events, or
+     *                        {@link CodecListener#NONE}
+     */
+    public LZ77Encoder(int windowSize, int lookAheadsize, MatchFinder matchFinder, ParsingStrategy parsingStrategy,
+                       int minMatchLength, PresetDictionary dictionary, CodecListener listener) {
+        if (minMatchLength < 1) {
+            throw new IllegalArgumentException("Minimum match length must be positive: " + minMatchLength);
+        }
         this.windowSize = windowSize;
         this.lookAheadsize = lookAheadsize;
+        this.matchFinder = matchFinder;
+        this.parsingStrategy = parsingStrategy;
+        this.minMatchLength = minMatchLength;
+        this.dictionary = dictionary;
+        this.listener = listener;
     }
 
     /**
-     * Encodes a string using the LZ77 algorithm.
+     * Encodes a string using the LZ77 algorithm. The string is encoded as UTF-8.
      *
      * @param input the string to encode
      * @return a list of encoded LZ77 tokens
      */
     public List<LZ77Token> encode(String input) {
-        List<LZ77Token> tokens = new ArrayList<>();
-        int currentPos = 0;
+        return encode(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encodes a byte array using the LZ77 algorithm.
+     *
+     * @param input the bytes to encode
+     * @return a list of encoded LZ77 tokens
+     */
+    public List<LZ77Token> encode(byte[] input) {
+        return encode(input, 0, input.length);
+    }
+
+    /**
+     * Encodes the bytes remaining in a buffer, advancing its position to its limit.
+     *
+     * @param input the buffer to encode
+     * @return a list of encoded LZ77 tokens
+     */
+    public List<LZ77Token> encode(ByteBuffer input) {
+        int length = input.remaining();
+        if (input.hasArray()) {
+            List<LZ77Token> tokens = encode(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.limit());
+            return tokens;
+        }
+        byte[] data = new byte[length];
+        input.get(data);
+        return encode(data, 0, length);
+    }
+
+    /**
+     * Encodes a range of a byte array using the LZ77 algorithm.
+     *
+     * @param input  the array holding the bytes to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @return a list of encoded LZ77 tokens
+     */
+    public List<LZ77Token> encode(byte[] input, int offset, int length) {
+        TokenBuffer tokens = new TokenBuffer();
+        encode(input, offset, length, tokens);
+        return tokens.toList();
+    }
+
+    /**
+     * Encodes a range of a byte array into a caller-supplied token buffer, which is cleared first.
+     * Reusing the same buffer across calls avoids allocating per token.
+     * <p>
+     * With a dictionary, the input is copied behind the dictionary tail and the match finder
+     * indexes that tail before encoding, so the cost of priming grows with the dictionary
+     * rather than with the input.
+     *
+     * @param input  the array holding the bytes to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @param tokens the buffer receiving the encoded tokens
+     */
+    public void encode(byte[] input, int offset, int length, TokenBuffer tokens) {
+        if (dictionary == null) {
+            encodeBlock(input, offset, offset, length, tokens);
+            return;
+        }
+        int history = dictionary.tailLength(windowSize);
+        if (primedInput == null || primedInput.length < history + length) {
+            primedInput = new byte[history + Math.max(length, history)];
+            dictionary.copyTail(history, primedInput, history);
+        }
+        System.arraycopy(input, offset, primedInput, history, length);
+        encodeBlock(primedInput, 0, history, length, tokens);
+    }
+
+    /**
+     * Encodes a range of a byte array into literal-run sequences, in a caller-supplied buffer
+     * which is cleared first.
+     *
+     * @param input     the array holding the bytes to encode
+     * @param offset    the index of the first byte to encode
+     * @param length    the number of bytes to encode
+     * @param sequences the buffer receiving the encoded sequences
+     */
+    public void encode(byte[] input, int offset, int length, SequenceBuffer sequences) {
+        if (sequenceTokens == null) {
+            sequenceTokens = new TokenBuffer();
+        }
+        encode(input, offset, length, sequenceTokens);
+        sequences.clear();
+        sequences.addTokens(sequenceTokens);
+    }
+
+    /**
+     * Encodes a block into literal-run sequences, with matches reaching back into the history
+     * before it as in {@link #encodeBlock(byte[], int, int, int, TokenBuffer)}.
+     *
+     * @param input        the array holding the history and the block
+     * @param historyStart the index of the oldest byte that matches may refer to
+     * @param offset       the index of the first byte to encode
+     * @param length       the number of bytes to encode
+     * @param sequences    the buffer receiving the encoded sequences; cleared first
+     */
+    public void encodeBlock(byte[] input, int historyStart, int offset, int length, SequenceBuffer sequences) {
+        if (sequenceTokens == null) {
+            sequenceTokens = new TokenBuffer();
+        }
+        encodeBlock(input, historyStart, offset, length, sequenceTokens);
+        sequences.clear();
+        sequences.addTokens(sequenceTokens);
+    }
+
+    /**
+     * Encodes a block of a byte array whose preceding bytes, from {@code historyStart}, are
+     * already known to the decoder. Matches may reach back into that history, which lets a
+     * stream carry its sliding window across block boundaries. The dictionary is not used here:
+     * callers place it in the history themselves.
+     *
+     * @param input        the array holding the history and the block
+     * @param historyStart the index of the oldest byte that matches may refer to
+     * @param offset       the index of the first byte to encode
+     * @param length       the number of bytes to encode
+     * @param tokens       the buffer receiving the encoded tokens; cleared first
+     */
+    public void encodeBlock(byte[] input, int historyStart, int offset, int length, TokenBuffer tokens) {
+        matchFinder.init(input, historyStart, offset + length, windowSize, minMatchLength);
+        matchFinder.skip(historyStart, offset - historyStart);
+        blockInput = input;
+        blockHistoryStart = historyStart;
+        parseBlock(input, offset, length, tokens);
+    }
+
+    /**
+     * Encodes the block that follows the last one passed to this encoder, in the same array, with
+     * matches reaching back as far as they could from that block. The match finder keeps what it
+     * indexed for the blocks before, so the cost depends on the block and not on the window, which
+     * {@link #encodeBlock(byte[], int, int, int, TokenBuffer)} indexes again every time.
+     * <p>
+     * Bytes between the previous block and this one, such as a block stored without encoding, are
+     * indexed as history. None of the bytes before {@code offset} may have changed.
+     *
+     * @param input  the array holding the previous blocks and this one
+     * @param offset the index of the first byte to encode, no earlier than the end of the
+     *               previous block
+     * @param length the number of bytes to encode
+     * @param tokens the buffer receiving the encoded tokens; cleared first
+     * @throws IllegalStateException if the block does not follow one in the same array
+     */
+    public void encodeNextBlock(byte[] input, int offset, int length, TokenBuffer tokens) {
+        if (input != blockInput || offset < blockEnd) {
+            throw new IllegalStateException("Block does not follow the previous one");
+        }
+        if (offset - blockEnd >= windowSize) {
+            // Nothing indexed so far is still in reach
+            encodeBlock(input, Math.max(blockHistoryStart, offset - windowSize), offset, length, tokens);
+            return;
+        }
+        matchFinder.extend(offset + length);
+        matchFinder.skip(blockEnd, offset - blockEnd);
+        parseBlock(input, offset, length, tokens);
+    }
+
+    private void parseBlock(byte[] input, int offset, int length, TokenBuffer tokens) {
+        tokens.clear();
+        int end = offset + length;
+
+        switch (parsingStrategy) {
+            case LAZY:
+                parseLazy(input, offset, end, tokens);
+                break;
+            case OPTIMAL:
+                parseOptimal(input, offset, end, tokens);
+                break;
+            default:
+                parseGreedy(input, offset, end, tokens);
+                break;
+        }
+        blockEnd = end;
+        if (CodecListener.ENABLED) {
+            listener.onBlockEncoded(tokens, length);
+        }
+    }
+
+    /**
+     * Takes the longest match at each position.
+     */
+    private void parseGreedy(byte[] input, int offset, int end, TokenBuffer tokens) {
+        int currentPos = offset;
+        while (currentPos < end) {
+            // Leave at least one byte to follow the match
+            int actualLookAheadSize = Math.min(lookAheadsize, end - currentPos - 1);
 
-        while (currentPos < input.length()) {
-            int maxMatchDistance = 0;
             int maxMatchLength = 0;
+            int maxMatchDistance = 0;
+            if (actualLookAheadSize > 0) {
+                // Find the longest match in the window
+                maxMatchLength = matchFinder.findMatch(currentPos, actualLookAheadSize);
+                maxMatchDistance = matchFinder.getMatchDistance();
+                if (CodecListener.ENABLED) {
+                    listener.onSearch(matchFinder.getProbeCount());
+                }
+            }
 
-            int actualWindowSize = Math.min(currentPos, windowSize);
-            int actualLookAheadSize = Math.min(lookAheadsize, input.length() - currentPos);
+            // Only use a match if it's long enough to be worth it (typically 3+ bytes)
+            if (maxMatchLength >= minMatchLength) {
+                tokens.addMatch(maxMatchDistance, maxMatchLength, input[currentPos + maxMatchLength]);
+                matchFinder.skip(currentPos + 1, maxMatchLength);
+                currentPos += maxMatchLength + 1;
+            } else {
+                // Otherwise just emit the current byte as a literal
+                tokens.addLiteral(input[currentPos]);
+                currentPos++;
+            }
+        }
+    }
 
-            if (actualLookAheadSize == 0) break;
+    /**
+     * Takes the longest match at each position unless deferring it by one or two literals
+     * reaches a longer one. Looked-ahead positions lie inside the match they are compared with,
+     * so each position is still searched at most once.
+     */
+    private void parseLazy(byte[] input, int offset, int end, TokenBuffer tokens) {
+        int currentPos = offset;
+        // Positions before this one have been handed to the match finder
+        int indexedPos = offset;
+        // Match already found at currentPos by looking ahead, if matchKnown is set
+        boolean matchKnown = false;
+        int matchLength = 0;
+        int matchDistance = 0;
 
-            // Find the longest match in the window
-            for (int i = 1; i <= actualWindowSize; i++) {
-                int windowPos = currentPos - i;
-                int matchLength = 0;
+        while (currentPos < end) {
+            if (!matchKnown) {
+                matchLength = 0;
+                int maxLength = Math.min(lookAheadsize, end - currentPos - 1);
+                if (maxLength > 0) {
+                    indexedPos = skipTo(indexedPos, currentPos);
+                    matchLength = matchFinder.findMatch(currentPos, maxLength);
+                    matchDistance = matchFinder.getMatchDistance();
+                    if (CodecListener.ENABLED) {
+                        listener.onSearch(matchFinder.getProbeCount());
+                    }
+                    indexedPos++;
+                }
+            }
+            matchKnown = false;
 
-                while (matchLength < actualLookAheadSize &&
-                        input.charAt(windowPos + matchLength) == input.charAt(currentPos + matchLength)) {
-                    matchLength++;
+            if (matchLength < minMatchLength) {
+                tokens.addLiteral(input[currentPos]);
+                currentPos++;
+                continue;
+            }
+
+            // Look one and two bytes ahead for a match that is worth the literals before it
+            int deferred = 0;
+            for (int ahead = 1; ahead <= 2 && ahead <= matchLength; ahead++) {
+                int pos = currentPos + ahead;
+                int maxLength = Math.min(lookAheadsize, end - pos - 1);
+                if (maxLength <= 0) {
+                    break;
+                }
+                indexedPos = skipTo(indexedPos, pos);
+                int length = matchFinder.findMatch(pos, maxLength);
+                int distance = matchFinder.getMatchDistance();
+                if (CodecListener.ENABLED) {
+                    listener.onSearch(matchFinder.getProbeCount());
                 }
+                indexedPos++;
+                if (length >= minMatchLength && length > matchLength + ahead - 1) {
+                    deferred = ahead;
+                    matchLength = length;
+                    matchDistance = distance;
+                    break;
+                }
+            }
 
-                if (matchLength > maxMatchLength) {
-                    maxMatchLength = matchLength;
-                    maxMatchDistance = i;
+            if (deferred > 0) {
+                for (int i = 0; i < deferred; i++) {
+                    tokens.addLiteral(input[currentPos + i]);
                 }
+                currentPos += deferred;
+                matchKnown = true;
+                continue;
             }
 
-            // Only use a match if it's long enough to be worth it (typically 3+ characters)
-            if (maxMatchLength >= MIN_MATCH_LENGTH) {
-                char nextChar = (currentPos + maxMatchLength < input.length())
-                        ? input.charAt(currentPos + maxMatchLength) : '\0';
+            tokens.addMatch(matchDistance, matchLength, input[currentPos + matchLength]);
+            currentPos += matchLength + 1;
+            indexedPos = skipTo(indexedPos, currentPos);
+        }
+    }
 
-                tokens.add(new LZ77Token(maxMatchDistance, maxMatchLength, nextChar));
-                currentPos += maxMatchLength + 1;
+    /**
+     * Hands the positions from {@code indexedPos} up to {@code pos} to the match finder without
+     * searching them.
+     *
+     * @return the new first position not yet handed to the finder
+     */
+    private int skipTo(int indexedPos, int pos) {
+        if (indexedPos < pos) {
+            matchFinder.skip(indexedPos, pos - indexedPos);
+            return pos;
+        }
+        return indexedPos;
+    }
+
+    /**
+     * Chooses tokens by finding the cheapest path through each stretch of the block, where
+     * every position is a node and every literal and match candidate, at any length up to the
+     * candidate's, is an edge weighted by its estimated size.
+     */
+    private void parseOptimal(byte[] input, int offset, int end, TokenBuffer tokens) {
+        if (prices == null) {
+            int candidates = Math.max(lookAheadsize, 1);
+            candidateLengths = new int[candidates];
+            candidateDistances = new int[candidates];
+            prices = new int[OPTIMAL_CHUNK_SIZE + 1];
+            choiceLengths = new int[OPTIMAL_CHUNK_SIZE + 1];
+            choiceDistances = new int[OPTIMAL_CHUNK_SIZE + 1];
+        }
+        int niceLength = Math.min(lookAheadsize, NICE_LENGTH);
+
+        int chunkStart = offset;
+        while (chunkStart < end) {
+            int chunkEnd = (int) Math.min((long) chunkStart + OPTIMAL_CHUNK_SIZE, end);
+            Arrays.fill(prices, 1, chunkEnd - chunkStart + 1, Integer.MAX_VALUE);
+            prices[0] = 0;
+
+            int pos = chunkStart;
+            int nextChunkStart = chunkEnd;
+            for (; pos < chunkEnd; pos++) {
+                int node = pos - chunkStart;
+                int price = prices[node];
+                relax(node + 1, price + LITERAL_PRICE, 0, 0);
+
+                int maxLength = Math.min(lookAheadsize, end - pos - 1);
+                if (maxLength < minMatchLength) {
+                    matchFinder.skip(pos, 1);
+                    continue;
+                }
+                int count = matchFinder.findMatches(pos, maxLength, candidateLengths, candidateDistances);
+                if (CodecListener.ENABLED) {
+                    listener.onSearch(matchFinder.getProbeCount());
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                // A long enough match is taken outright, ending the stretch just before it
+                int longest = candidateLengths[count - 1];
+                if (longest >= niceLength) {
+                    emitPath(input, chunkStart, node, tokens);
+                    tokens.addMatch(candidateDistances[count - 1], longest, input[pos + longest]);
+                    matchFinder.skip(pos + 1, longest);
+                    nextChunkStart = pos + longest + 1;
+                    break;
+                }
+
+                // Every length up to a candidate's can use its distance; edges stay in the stretch
+                int maxEdgeLength = chunkEnd - pos - 1;
+                int length = minMatchLength;
+                for (int i = 0; i < count && length <= maxEdgeLength; i++) {
+                    int distance = candidateDistances[i];
+                    int distancePrice = price + MATCH_BASE_PRICE + valuePrice(distance - 1);
+                    int candidateEnd = Math.min(candidateLengths[i], maxEdgeLength);
+                    for (; length <= candidateEnd; length++) {
+                        relax(node + length + 1, distancePrice + valuePrice(length - 1), length, distance);
+                    }
+                }
+            }
+
+            if (pos == chunkEnd) {
+                emitPath(input, chunkStart, chunkEnd - chunkStart, tokens);
+            }
+            chunkStart = nextChunkStart;
+        }
+    }
+
+    private void relax(int node, int price, int length, int distance) {
+        if (price < prices[node]) {
+            prices[node] = price;
+            choiceLengths[node] = length;
+            choiceDistances[node] = distance;
+        }
+    }
+
+    /**
+     * Estimates the bits needed for a match length or distance, as a bucket code plus the extra
+     * bits that locate the value inside its power-of-two bucket.
+     */
+    private static int valuePrice(int value) {
+        return value < 4 ? VALUE_BASE_PRICE : VALUE_BASE_PRICE + 30 - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Emits the cheapest path from the start of a stretch to the given node, in order.
+     */
+    private void emitPath(byte[] input, int chunkStart, int node, TokenBuffer tokens) {
+        // Prices are no longer needed, so the nodes on the path are collected there, last first
+        int steps = 0;
+        while (node > 0) {
+            prices[steps++] = node;
+            node -= choiceLengths[node] + 1;
+        }
+        while (steps > 0) {
+            node = prices[--steps];
+            int length = choiceLengths[node];
+            int pos = chunkStart + node - length - 1;
+            if (length == 0) {
+                tokens.addLiteral(input[pos]);
             } else {
-                // Otherwise just emit the current character as a literal
-                tokens.add(new LZ77Token(0, 0, input.charAt(currentPos)));
-                currentPos++;
+                tokens.addMatch(choiceDistances[node], length, input[pos + length]);
             }
         }
+    }
 
-        return tokens;
+    /**
+     * Creates an encoder with the same configuration and its own match finder state,
+     * so that it can be used concurrently with this one.
+     *
+     * @return a new encoder
+     */
+    public LZ77Encoder newInstance() {
+        return new LZ77Encoder(windowSize, lookAheadsize, matchFinder.newInstance(), parsingStrategy,
+                minMatchLength, dictionary, listener);
     }
 
     public int getWindowSize() {
@@ -76,4 +574,27 @@ public class LZ77Encoder {
     public int getLookAheadsize() {
         return lookAheadsize;
     }
+
+    public MatchFinder getMatchFinder() {
+        return matchFinder;
+    }
+
+    public ParsingStrategy getParsingStrategy() {
+        return parsingStrategy;
+    }
+
+    public int getMinMatchLength() {
+        return minMatchLength;
+    }
+
+    /**
+     * Returns the dictionary priming the window, or null if there is none.
+     */
+    public PresetDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public CodecListener getListener() {
+        return listener;
+    }
 }
@@ -0,0 +1,91 @@
+package core;
+
+/**
+ * Strategy used by {@link LZ77Encoder} to locate back-references in the sliding window.
+ * <p>
+ * The encoder visits positions in increasing order and every position is handed to the
+ * finder exactly once, either through {@link #findMatch(int, int)} or {@link #skip(int, int)},
+ * so that index-based implementations can keep their tables in step with the window.
+ */
+public interface MatchFinder {
+
+    /**
+     * Prepares the finder for a new input. Positions are indices into {@code input}, and
+     * back-references never reach before {@code start}.
+     *
+     * @param input          the data being encoded
+     * @param start          the index of the first valid byte
+     * @param end            the index after the last valid byte
+     * @param windowSize     the maximum distance of a back-reference
+     * @param minMatchLength the shortest match the encoder will use
+     */
+    void init(byte[] input, int start, int end, int windowSize, int minMatchLength);
+
+    /**
+     * Extends the input given to {@link #init} up to {@code end}, keeping everything indexed so
+     * far, so that a stream can go on with its next block without indexing its window again.
+     * Positions too close to the old end to be indexed are indexed now. The bytes before the old
+     * end must not have changed.
+     *
+     * @param end the index after the last valid byte, no less than before
+     */
+    void extend(int end);
+
+    /**
+     * Finds the longest match for the data starting at {@code pos} and indexes the position.
+     * When several matches have the same length the closest one is reported.
+     *
+     * @param pos       the current position
+     * @param maxLength the maximum match length allowed at this position
+     * @return the length of the longest match found, or 0 if there is none
+     */
+    int findMatch(int pos, int maxLength);
+
+    /**
+     * Finds every match at {@code pos} that is longer than the ones before it and indexes the
+     * position. Candidates are reported in order of increasing length, so the last one is the
+     * longest match; {@code lengths} and {@code distances} must hold {@code maxLength} entries.
+     *
+     * @param pos       the current position
+     * @param maxLength the maximum match length allowed at this position
+     * @param lengths   receives the candidate lengths
+     * @param distances receives the candidate distances
+     * @return the number of candidates found
+     */
+    int findMatches(int pos, int maxLength, int[] lengths, int[] distances);
+
+    /**
+     * Returns the distance of the match reported by the last call to {@link #findMatch(int, int)}.
+     *
+     * @return the match distance
+     */
+    int getMatchDistance();
+
+    /**
+     * Returns the number of candidate positions compared by the last call to
+     * {@link #findMatch(int, int)} or {@link #findMatches(int, int, int[], int[])}: the length of
+     * the hash chain walked, the number of tree nodes visited and so on. Probes are only counted
+     * when {@link CodecListener#ENABLED} is set; otherwise, and for finders that do not count
+     * them, this returns 0.
+     *
+     * @return the probe count of the last search
+     */
+    default int getProbeCount() {
+        return 0;
+    }
+
+    /**
+     * Indexes positions that are covered by a match without searching them.
+     *
+     * @param pos   the first position to index
+     * @param count the number of positions to index
+     */
+    void skip(int pos, int count);
+
+    /**
+     * Creates a finder with the same settings and no state, for use on another thread.
+     *
+     * @return a new match finder
+     */
+    MatchFinder newInstance();
+}
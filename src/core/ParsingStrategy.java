@@ -0,0 +1,24 @@
+package core;
+
+/**
+ * How {@link LZ77Encoder} chooses between the matches available at each position.
+ */
+public enum ParsingStrategy {
+    /**
+     * Takes the longest match at the current position and continues after it. Fastest.
+     */
+    GREEDY,
+
+    /**
+     * Before taking a match, checks whether starting one or two bytes later gives a longer match,
+     * and emits literals up to it if so. Slightly slower than greedy, with fewer and longer matches.
+     */
+    LAZY,
+
+    /**
+     * Finds the cheapest sequence of literals and matches over each stretch of the block with a
+     * shortest-path search over every match candidate, using an estimate of each token's size
+     * in bits. Slowest to encode; produces the smallest output.
+     */
+    OPTIMAL
+}
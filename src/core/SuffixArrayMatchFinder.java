@@ -0,0 +1,259 @@
+package core;
+
+/**
+ * Match finder for whole-buffer (block mode) compression, backed by a suffix array.
+ * <p>
+ * The input is processed in blocks of {@code blockSize} positions. For each block a suffix array
+ * is built with SA-IS over the preceding window plus the block, together with its LCP array
+ * (Kasai et al.), both in linear time. The longest match at a position is then found among the
+ * suffixes adjacent to it in sorted order: walking outwards from its rank, the common prefix
+ * length can only shrink, so the walk stops as soon as it can no longer beat or tie the best
+ * match, and ties go to the closest candidate.
+ * <p>
+ * Memory is bounded by roughly 16 bytes per position of {@code windowSize + blockSize}.
+ */
+public class SuffixArrayMatchFinder implements MatchFinder {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    public static final int DEFAULT_MAX_SCAN = 256;
+
+    private final int blockSize;
+    private final int maxScan;
+
+    private byte[] input;
+    private int start;
+    private int end;
+    private int windowSize;
+    private int minMatchLength;
+    private int matchDistance;
+    private int probeCount;
+
+    // Current block: suffixes of input[segmentStart, segmentEnd)
+    private int segmentStart;
+    private int segmentEnd;
+    private int blockEnd;
+    private int[] suffixArray;
+    private int[] rank;
+    private int[] lcp;
+
+    // Candidates of the current search, by increasing length and distance
+    private int[] frontierLengths = new int[0];
+    private int[] frontierDistances = new int[0];
+
+    public SuffixArrayMatchFinder() {
+        this(DEFAULT_BLOCK_SIZE, DEFAULT_MAX_SCAN);
+    }
+
+    /**
+     * Constructs a suffix-array match finder.
+     *
+     * @param blockSize the number of positions indexed per suffix array
+     * @param maxScan   the maximum number of neighbouring suffixes examined per position
+     */
+    public SuffixArrayMatchFinder(int blockSize, int maxScan) {
+        if (blockSize < 1 || maxScan < 1) {
+            throw new IllegalArgumentException("Block size and scan limit must be positive");
+        }
+        this.blockSize = blockSize;
+        this.maxScan = maxScan;
+    }
+
+    @Override
+    public void init(byte[] input, int start, int end, int windowSize, int minMatchLength) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.minMatchLength = Math.max(1, minMatchLength);
+        this.matchDistance = 0;
+        this.segmentStart = start;
+        this.segmentEnd = start;
+        this.blockEnd = start;
+    }
+
+    @Override
+    public void extend(int end) {
+        // Positions past the current block are indexed when the search reaches them
+        this.end = end;
+    }
+
+    @Override
+    public int findMatch(int pos, int maxLength) {
+        return search(pos, maxLength, null, null);
+    }
+
+    @Override
+    public int findMatches(int pos, int maxLength, int[] lengths, int[] distances) {
+        return search(pos, maxLength, lengths, distances);
+    }
+
+    /**
+     * Walks up and down the suffix array from the rank of {@code pos}. Each direction yields
+     * non-increasing common prefix lengths, so when only the longest match is wanted
+     * ({@code lengths} is null) a direction stops once it falls below the best length, and
+     * otherwise once it falls below the minimum match length. Candidates are kept as a frontier
+     * of lengths and distances that both increase, so every candidate reported is longer than
+     * the ones before it and is the closest match of its length that was seen.
+     */
+    private int search(int pos, int maxLength, int[] lengths, int[] distances) {
+        matchDistance = 0;
+        if (pos >= blockEnd) {
+            buildBlock(pos, maxLength);
+        }
+        if (frontierLengths.length < maxLength) {
+            frontierLengths = new int[maxLength];
+            frontierDistances = new int[maxLength];
+        }
+
+        int suffix = pos - segmentStart;
+        int r = rank[suffix];
+        int limit = pos - windowSize;
+        boolean longestOnly = lengths == null;
+
+        int probes = 0;
+        int count = 0;
+        int common = Integer.MAX_VALUE;
+        for (int i = r - 1, scanned = 0; i >= 0 && scanned < maxScan; i--, scanned++) {
+            if (CodecListener.ENABLED) {
+                probes++;
+            }
+            common = Math.min(common, lcp[i + 1]);
+            if (common < minMatchLength || longestOnly && count > 0
+                    && Math.min(common, maxLength) < frontierLengths[count - 1]) {
+                break;
+            }
+            int candidate = segmentStart + suffixArray[i];
+            if (candidate < pos && candidate >= limit) {
+                count = addCandidate(extendMatch(candidate, pos, common, maxLength), pos - candidate, count);
+            }
+        }
+
+        common = Integer.MAX_VALUE;
+        for (int i = r + 1, scanned = 0; i < suffixArray.length && scanned < maxScan; i++, scanned++) {
+            if (CodecListener.ENABLED) {
+                probes++;
+            }
+            common = Math.min(common, lcp[i]);
+            if (common < minMatchLength || longestOnly && count > 0
+                    && Math.min(common, maxLength) < frontierLengths[count - 1]) {
+                break;
+            }
+            int candidate = segmentStart + suffixArray[i];
+            if (candidate < pos && candidate >= limit) {
+                count = addCandidate(extendMatch(candidate, pos, common, maxLength), pos - candidate, count);
+            }
+        }
+
+        if (CodecListener.ENABLED) {
+            probeCount = probes;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        matchDistance = frontierDistances[count - 1];
+        if (longestOnly) {
+            return frontierLengths[count - 1];
+        }
+        System.arraycopy(frontierLengths, 0, lengths, 0, count);
+        System.arraycopy(frontierDistances, 0, distances, 0, count);
+        return count;
+    }
+
+    /**
+     * Adds a candidate to the frontier unless a match at least as long is at least as close, and
+     * drops the frontier entries that it makes redundant.
+     *
+     * @return the new size of the frontier
+     */
+    private int addCandidate(int length, int distance, int count) {
+        int at = 0;
+        while (at < count && frontierLengths[at] < length) {
+            at++;
+        }
+        if (at < count && frontierDistances[at] <= distance) {
+            return count;
+        }
+        // Shorter entries are redundant when they are no closer
+        int from = at;
+        while (from > 0 && frontierDistances[from - 1] >= distance) {
+            from--;
+        }
+        // An entry of the same length is replaced
+        int to = at < count && frontierLengths[at] == length ? at + 1 : at;
+        int shift = 1 - (to - from);
+        if (shift != 0) {
+            System.arraycopy(frontierLengths, to, frontierLengths, to + shift, count - to);
+            System.arraycopy(frontierDistances, to, frontierDistances, to + shift, count - to);
+        }
+        frontierLengths[from] = length;
+        frontierDistances[from] = distance;
+        return count + shift;
+    }
+
+    @Override
+    public int getMatchDistance() {
+        return matchDistance;
+    }
+
+    @Override
+    public int getProbeCount() {
+        return probeCount;
+    }
+
+    @Override
+    public void skip(int pos, int count) {
+        // The whole block is indexed up front
+    }
+
+    @Override
+    public MatchFinder newInstance() {
+        return new SuffixArrayMatchFinder(blockSize, maxScan);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the match length capped at {@code maxLength}, continuing the comparison past the
+     * end of the indexed segment when the common prefix was cut short by it.
+     */
+    private int extendMatch(int candidate, int pos, int common, int maxLength) {
+        int matchLength = Math.min(common, maxLength);
+        if (pos + matchLength == segmentEnd) {
+            int limit = Math.min(maxLength, end - pos);
+            while (matchLength < limit && input[candidate + matchLength] == input[pos + matchLength]) {
+                matchLength++;
+            }
+        }
+        return matchLength;
+    }
+
+    /**
+     * Indexes the block starting at {@code pos} together with the window preceding it, and
+     * enough data past its end that matches starting inside the block are not cut short.
+     */
+    private void buildBlock(int pos, int maxLength) {
+        segmentStart = Math.max(start, pos - windowSize);
+        blockEnd = Math.min(end, pos + blockSize);
+        segmentEnd = Math.min(end, blockEnd + maxLength);
+        int n = segmentEnd - segmentStart;
+
+        // Shift the alphabet up by one so that 0 can serve as the unique sentinel
+        int[] text = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            text[i] = (input[segmentStart + i] & 0xFF) + 1;
+        }
+
+        int[] sa = SuffixArrays.build(text, 257);
+
+        // Drop the sentinel suffix, which always sorts first
+        suffixArray = new int[n];
+        System.arraycopy(sa, 1, suffixArray, 0, n);
+
+        rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[suffixArray[i]] = i;
+        }
+        lcp = SuffixArrays.lcp(text, n, suffixArray, rank);
+    }
+}
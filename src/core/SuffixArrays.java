@@ -0,0 +1,190 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Suffix array construction (SA-IS, Nong, Zhang and Chan) and LCP computation (Kasai et al.).
+ */
+final class SuffixArrays {
+
+    private SuffixArrays() {
+    }
+
+    /**
+     * Builds the suffix array of {@code text}, whose last symbol must be a unique 0 sentinel.
+     *
+     * @param text         the symbols, each in {@code [0, alphabetSize)}
+     * @param alphabetSize the number of distinct symbol values
+     * @return the starting positions of the suffixes in sorted order
+     */
+    static int[] build(int[] text, int alphabetSize) {
+        int n = text.length;
+        int[] sa = new int[n];
+        if (n == 1) {
+            return sa;
+        }
+
+        // Classify suffixes: true for S-type, false for L-type
+        boolean[] sType = new boolean[n];
+        sType[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = text[i] < text[i + 1] || (text[i] == text[i + 1] && sType[i + 1]);
+        }
+
+        int[] bucket = new int[alphabetSize];
+
+        // Sort the LMS substrings by inducing from their unsorted positions
+        Arrays.fill(sa, -1);
+        bucketEnds(text, bucket);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) {
+                sa[--bucket[text[i]]] = i;
+            }
+        }
+        induceL(text, sa, sType, bucket);
+        induceS(text, sa, sType, bucket);
+
+        // Compact the sorted LMS positions into the front of sa
+        int lmsCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) {
+                sa[lmsCount++] = sa[i];
+            }
+        }
+        Arrays.fill(sa, lmsCount, n, -1);
+
+        // Name each LMS substring; equal substrings share a name
+        int name = 0;
+        int previous = -1;
+        for (int i = 0; i < lmsCount; i++) {
+            int pos = sa[i];
+            boolean different = false;
+            for (int d = 0; d < n; d++) {
+                if (previous == -1 || text[pos + d] != text[previous + d]
+                        || sType[pos + d] != sType[previous + d]) {
+                    different = true;
+                    break;
+                } else if (d > 0 && (isLms(sType, pos + d) || isLms(sType, previous + d))) {
+                    break;
+                }
+            }
+            if (different) {
+                name++;
+                previous = pos;
+            }
+            sa[lmsCount + pos / 2] = name - 1;
+        }
+
+        int[] reduced = new int[lmsCount];
+        for (int i = n - 1, j = lmsCount - 1; i >= lmsCount; i--) {
+            if (sa[i] >= 0) {
+                reduced[j--] = sa[i];
+            }
+        }
+
+        // Sort the reduced problem, recursing only if names are not yet unique
+        int[] reducedSa;
+        if (name < lmsCount) {
+            reducedSa = build(reduced, name);
+        } else {
+            reducedSa = new int[lmsCount];
+            for (int i = 0; i < lmsCount; i++) {
+                reducedSa[reduced[i]] = i;
+            }
+        }
+
+        // Map reduced ranks back to LMS positions and induce the full order
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) {
+                reduced[j++] = i;
+            }
+        }
+        Arrays.fill(sa, -1);
+        bucketEnds(text, bucket);
+        for (int i = lmsCount - 1; i >= 0; i--) {
+            int pos = reduced[reducedSa[i]];
+            sa[--bucket[text[pos]]] = pos;
+        }
+        induceL(text, sa, sType, bucket);
+        induceS(text, sa, sType, bucket);
+
+        return sa;
+    }
+
+    /**
+     * Computes the LCP array: {@code lcp[i]} is the length of the common prefix of the suffixes
+     * at {@code sa[i - 1]} and {@code sa[i]}, and {@code lcp[0]} is 0.
+     *
+     * @param text the symbols, followed by a sentinel not found elsewhere
+     * @param n    the number of suffixes, excluding the sentinel
+     * @param sa   the suffix array of the first {@code n} positions
+     * @param rank the inverse of {@code sa}
+     * @return the LCP array
+     */
+    static int[] lcp(int[] text, int n, int[] sa, int[] rank) {
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            if (rank[i] > 0) {
+                int j = sa[rank[i] - 1];
+                while (text[i + h] == text[j + h]) {
+                    h++;
+                }
+                lcp[rank[i]] = h;
+                if (h > 0) {
+                    h--;
+                }
+            } else {
+                h = 0;
+            }
+        }
+        return lcp;
+    }
+
+    private static boolean isLms(boolean[] sType, int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    private static void bucketStarts(int[] text, int[] bucket) {
+        Arrays.fill(bucket, 0);
+        for (int c : text) {
+            bucket[c]++;
+        }
+        for (int c = 0, sum = 0; c < bucket.length; c++) {
+            int count = bucket[c];
+            bucket[c] = sum;
+            sum += count;
+        }
+    }
+
+    private static void bucketEnds(int[] text, int[] bucket) {
+        Arrays.fill(bucket, 0);
+        for (int c : text) {
+            bucket[c]++;
+        }
+        for (int c = 0, sum = 0; c < bucket.length; c++) {
+            sum += bucket[c];
+            bucket[c] = sum;
+        }
+    }
+
+    private static void induceL(int[] text, int[] sa, boolean[] sType, int[] bucket) {
+        bucketStarts(text, bucket);
+        for (int i = 0; i < sa.length; i++) {
+            int j = sa[i] - 1;
+            if (j >= 0 && !sType[j]) {
+                sa[bucket[text[j]]++] = j;
+            }
+        }
+    }
+
+    private static void induceS(int[] text, int[] sa, boolean[] sType, int[] bucket) {
+        bucketEnds(text, bucket);
+        for (int i = sa.length - 1; i >= 0; i--) {
+            int j = sa[i] - 1;
+            if (j >= 0 && sType[j]) {
+                sa[--bucket[text[j]]] = j;
+            }
+        }
+    }
+}
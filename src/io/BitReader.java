@@ -0,0 +1,98 @@
+package io;
+
+import java.io.EOFException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Reads bit fields written by {@link BitWriter} from a byte array.
+ * <p>
+ * The input is loaded 32 bits at a time into a 64-bit accumulator, from which fields of up to
+ * 32 bits are extracted with a shift and a mask.
+ */
+final class BitReader {
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final byte[] buffer;
+    private final int end;
+    private int position;
+    private long accumulator;
+    private int bitCount;
+
+    BitReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Reads an {@code n}-bit field, for {@code n} from 0 to 32.
+     *
+     * @throws EOFException if fewer than {@code n} bits remain
+     */
+    int readBits(int n) throws EOFException {
+        if (bitCount < n) {
+            refill(n);
+            if (bitCount < n) {
+                throw new EOFException("End of input reached");
+            }
+        }
+        bitCount -= n;
+        return (int) ((accumulator >>> bitCount) & ((1L << n) - 1));
+    }
+
+    /**
+     * Returns the next {@code n} bits, for {@code n} from 0 to 32, without consuming them.
+     * Past the end of the input the missing bits read as zeros.
+     */
+    int peekBits(int n) {
+        if (bitCount < n) {
+            refill(n);
+            if (bitCount < n) {
+                return (int) ((accumulator << (n - bitCount)) & ((1L << n) - 1));
+            }
+        }
+        return (int) ((accumulator >>> (bitCount - n)) & ((1L << n) - 1));
+    }
+
+    /**
+     * Consumes {@code n} bits previously returned by {@link #peekBits}.
+     *
+     * @throws EOFException if fewer than {@code n} bits remain
+     */
+    void skipBits(int n) throws EOFException {
+        if (bitCount < n) {
+            throw new EOFException("End of input reached");
+        }
+        bitCount -= n;
+    }
+
+    int readBit() throws EOFException {
+        return readBits(1);
+    }
+
+    int readByte() throws EOFException {
+        return readBits(8);
+    }
+
+    int readInt() throws EOFException {
+        return readBits(32);
+    }
+
+    /**
+     * Loads at least {@code n} bits if the input has them, a whole word when enough remains.
+     */
+    private void refill(int n) {
+        if (end - position >= 4) {
+            accumulator = (accumulator << 32) | (((int) INT_BE.get(buffer, position)) & 0xFFFFFFFFL);
+            position += 4;
+            bitCount += 32;
+            return;
+        }
+        while (bitCount < n && position < end) {
+            accumulator = (accumulator << 8) | (buffer[position++] & 0xFF);
+            bitCount += 8;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Writes bit fields, most significant bit first, into a growable byte array.
+ * <p>
+ * Bits are gathered in a 64-bit accumulator and stored 32 bits at a time, so a field of any
+ * width up to 32 bits costs a shift and an or rather than one call per bit.
+ */
+final class BitWriter {
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private byte[] buffer;
+    private int position;
+    private long accumulator;
+    private int bitCount;
+
+    BitWriter() {
+        this(1 << 12);
+    }
+
+    BitWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 8)];
+    }
+
+    /**
+     * Writes the low {@code n} bits of a value, for {@code n} from 0 to 32.
+     */
+    void writeBits(int value, int n) {
+        accumulator = (accumulator << n) | (value & ((1L << n) - 1));
+        bitCount += n;
+        if (bitCount >= 32) {
+            bitCount -= 32;
+            ensureCapacity(4);
+            INT_BE.set(buffer, position, (int) (accumulator >>> bitCount));
+            position += 4;
+        }
+    }
+
+    void writeBit(int bit) {
+        writeBits(bit, 1);
+    }
+
+    void writeByte(int b) {
+        writeBits(b, 8);
+    }
+
+    void writeInt(int value) {
+        writeBits(value, 32);
+    }
+
+    /**
+     * Pads the pending bits to a byte boundary, then appends bytes from an array.
+     */
+    void writeBytes(byte[] bytes, int offset, int length) {
+        flush();
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Pads the pending bits with zeros to a byte boundary and stores them.
+     */
+    void flush() {
+        while (bitCount > 0) {
+            ensureCapacity(1);
+            int shift = bitCount - 8;
+            buffer[position++] = (byte) (shift >= 0 ? accumulator >>> shift : accumulator << -shift);
+            bitCount = Math.max(shift, 0);
+        }
+    }
+
+    /**
+     * Returns the number of complete bytes written, not counting bits pending a {@link #flush()}.
+     */
+    int size() {
+        return position;
+    }
+
+    /**
+     * Returns the array holding the written bytes, valid up to {@link #size()}.
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * Copies the written bytes to a stream.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    /**
+     * Discards everything written, keeping the allocated array.
+     */
+    void reset() {
+        position = 0;
+        accumulator = 0;
+        bitCount = 0;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.length - position < bytes) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package io;
+
+import core.CodecListener;
+import core.LZ77Decoder;
+import core.LZ77Encoder;
+import model.PresetDictionary;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Layout of the block container shared by the file and stream classes.
+ * <p>
+ * A container starts with a header:
+ * <pre>
+ *   magic "LZ77" (32 bits) | version (8 bits) | window size (32 bits) | block size (32 bits)
+ *   dictionary ID (32 bits)
+ * </pre>
+ * followed by blocks, each framed as
+ * <pre>
+ *   type (8 bits) | uncompressed length (32 bits) | payload length (32 bits) | payload
+ * </pre>
+ * and terminated by a block of type {@link #BLOCK_END} with no lengths or payload.
+ * A {@link #BLOCK_TOKENS} payload is the efficient token format: a 32-bit token count followed by
+ * the bit-packed tokens; a {@link #BLOCK_HUFFMAN} payload is Huffman coded (see
+ * {@link HuffmanTokenFormat}) and a {@link #BLOCK_FSE} payload is tANS coded (see
+ * {@link FseTokenFormat}) and a {@link #BLOCK_SEQUENCES} payload holds literal-run sequences (see
+ * {@link SequenceFormat}). A {@link #BLOCK_STORED} payload is the raw block itself, written when
+ * coding would not make it smaller. Tokens may refer back into earlier blocks, up to the window
+ * size, unless the block type carries the {@link #BLOCK_INDEPENDENT} flag.
+ * <p>
+ * A non-zero dictionary ID names the {@link PresetDictionary} the container was written with.
+ * Its tail, up to the window size, counts as the data before every independent block, so such
+ * blocks may refer back into the dictionary but into nothing else.
+ * <p>
+ * Since version 2 the end marker is followed by a trailer index (see {@link BlockIndex}) giving
+ * the sizes of every block, so blocks can be located without reading the ones before them.
+ * Version 1 containers have no trailer and are still readable sequentially.
+ * <p>
+ * Since version 3 the distances and lengths of {@link #BLOCK_TOKENS} payloads are LEB128 coded,
+ * so any window size fits; earlier versions use a two-byte form limited to 16383. The dictionary
+ * ID was added in version 4; earlier headers end after the block size.
+ */
+final class BlockFormat {
+    static final int MAGIC = 0x4C5A3737; // "LZ77"
+    static final int VERSION = 4;
+    // First version whose packed tokens use LEB128 distances and lengths
+    static final int LEB128_VERSION = 3;
+    // First version whose header carries a dictionary ID
+    static final int DICTIONARY_VERSION = 4;
+    // Version whose token layout the headerless single-block format shares
+    static final int HEADERLESS_VERSION = 1;
+    // Largest distance or length the packed tokens of earlier versions can hold
+    static final int LEGACY_MAX_VALUE = (1 << 14) - 1;
+
+    static final int BLOCK_END = 0;
+    static final int BLOCK_TOKENS = 1;
+    static final int BLOCK_HUFFMAN = 2;
+    static final int BLOCK_FSE = 3;
+    static final int BLOCK_SEQUENCES = 4;
+    static final int BLOCK_STORED = 5;
+
+    // Flag on the block type: the block makes no references to data before it, other than the
+    // dictionary
+    static final int BLOCK_INDEPENDENT = 0x80;
+
+    // Largest window and block a header may declare, which bound what a reader allocates: four
+    // times the window of the highest compression level, and a block as large
+    static final int MAX_WINDOW_SIZE = 1 << 24;
+    static final int MAX_BLOCK_SIZE = 1 << 24;
+
+    static final int HEADER_SIZE = 17;
+    // Size of the header before DICTIONARY_VERSION
+    static final int LEGACY_HEADER_SIZE = 13;
+    static final int BLOCK_FRAME_SIZE = 9;
+
+    // Blocks at least this long whose byte entropy is at least STORED_ENTROPY bits are stored
+    // without trying to encode them
+    private static final int ENTROPY_SAMPLE_MIN = 4096;
+    private static final double STORED_ENTROPY = 7.97;
+
+    private BlockFormat() {
+    }
+
+    /**
+     * Checks that a window and block size can be written to a header, as readers reject anything
+     * larger.
+     *
+     * @throws IllegalArgumentException if either size is out of range
+     */
+    static void checkSizes(int windowSize, int blockSize) {
+        if (windowSize < 0 || windowSize > MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Window size must be between 0 and " + MAX_WINDOW_SIZE + ": "
+                    + windowSize);
+        }
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + MAX_BLOCK_SIZE + ": "
+                    + blockSize);
+        }
+    }
+
+    /**
+     * Writes the container header.
+     *
+     * @param dictionary the dictionary the blocks are encoded with, or null for none
+     */
+    static void writeHeader(DataOutputStream out, int windowSize, int blockSize, PresetDictionary dictionary)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(windowSize);
+        out.writeInt(blockSize);
+        out.writeInt(dictionary != null ? dictionary.getId() : 0);
+    }
+
+    /**
+     * Reads the container header, after the magic number, and returns the window size, block
+     * size, version and dictionary ID (0 if there is none).
+     */
+    static int[] readHeader(DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported container version: " + version);
+        }
+        int windowSize = in.readInt();
+        int blockSize = in.readInt();
+        if (windowSize < 0 || windowSize > MAX_WINDOW_SIZE || blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Corrupt container header");
+        }
+        int dictionaryId = version >= DICTIONARY_VERSION ? in.readInt() : 0;
+        return new int[] {windowSize, blockSize, version, dictionaryId};
+    }
+
+    /**
+     * Reads and checks the container header at the start of a file, as {@link #readHeader}.
+     */
+    static int[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_SIZE, channel.size()));
+        BlockIndex.readFully(channel, header, 0);
+        if (header.capacity() < 4 || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an LZ77 container");
+        }
+        return readHeader(new DataInputStream(
+                new ByteArrayInputStream(header.array(), 4, header.capacity() - 4)));
+    }
+
+    /**
+     * Returns the size of the header of a container of the given version.
+     */
+    static int headerSize(int version) {
+        return version >= DICTIONARY_VERSION ? HEADER_SIZE : LEGACY_HEADER_SIZE;
+    }
+
+    /**
+     * Returns the dictionary a container with the given dictionary ID needs, taken from the
+     * decoder, or null if the container has none.
+     *
+     * @throws IOException if the decoder does not hold the dictionary
+     */
+    static PresetDictionary dictionaryFor(int dictionaryId, LZ77Decoder decoder) throws IOException {
+        if (dictionaryId == 0) {
+            return null;
+        }
+        PresetDictionary dictionary = decoder.getDictionary();
+        if (dictionary == null || dictionary.getId() != dictionaryId) {
+            throw new IOException("Container needs preset dictionary " + Integer.toHexString(dictionaryId));
+        }
+        return dictionary;
+    }
+
+    /**
+     * Encodes a block and serializes it as a payload, replacing the previous contents of
+     * {@code payload}. A block is stored raw instead if its bytes look random, such as already
+     * compressed data, which skips encoding it at all, or if coding it did not make it smaller.
+     *
+     * @param encoder      the encoder for the block
+     * @param input        the array holding the history and the block
+     * @param historyStart the index of the oldest byte that matches may refer to
+     * @param offset       the index of the first byte of the block
+     * @param length       the number of bytes in the block
+     * @param continued    whether the block follows the last one given to the encoder in the same
+     *                     array, so that it can keep its match finder state (see
+     *                     {@link LZ77Encoder#encodeNextBlock})
+     * @param tokens       scratch buffer for the encoded tokens
+     * @param sequences    scratch buffer for sequence coding
+     * @return the block type of the payload
+     */
+    static int encodePayload(LZ77Encoder encoder, byte[] input, int historyStart, int offset, int length,
+                             boolean continued, TokenBuffer tokens, SequenceBuffer sequences, TokenCoding coding,
+                             BitWriter payload) {
+        if (!looksIncompressible(input, offset, length)) {
+            if (continued) {
+                encoder.encodeNextBlock(input, offset, length, tokens);
+            } else {
+                encoder.encodeBlock(input, historyStart, offset, length, tokens);
+            }
+            int type = writePayload(tokens, sequences, coding, payload);
+            if (payload.size() < length) {
+                return type;
+            }
+        } else if (CodecListener.ENABLED) {
+            encoder.getListener().onBlockStored(length);
+        }
+        payload.reset();
+        payload.writeBytes(input, offset, length);
+        return BLOCK_STORED;
+    }
+
+    /**
+     * Estimates whether a block is incompressible from the entropy of its byte histogram, with
+     * the Miller-Madow correction for the bias of short samples. LZ77 cannot gain much on data
+     * whose bytes are close to uniformly distributed, and costs a full match search finding out.
+     */
+    private static boolean looksIncompressible(byte[] input, int offset, int length) {
+        if (length < ENTROPY_SAMPLE_MIN) {
+            return false;
+        }
+        int[] counts = new int[256];
+        for (int i = offset; i < offset + length; i++) {
+            counts[input[i] & 0xFF]++;
+        }
+        double sum = 0;
+        int used = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                sum += count * Math.log(count);
+                used++;
+            }
+        }
+        double entropy = (Math.log(length) - sum / length + (used - 1) / (2.0 * length)) / Math.log(2);
+        return entropy >= STORED_ENTROPY;
+    }
+
+    /**
+     * Serializes tokens as a block payload, replacing the previous contents of {@code payload}.
+     * {@link TokenCoding#PACKED} blocks are written as sequences instead when that is smaller.
+     * The sequence buffer is scratch space for sequence coding.
+     *
+     * @return the block type of the payload
+     */
+    static int writePayload(TokenBuffer tokens, SequenceBuffer sequences, TokenCoding coding, BitWriter payload) {
+        payload.reset();
+        int type;
+        if (coding == TokenCoding.HUFFMAN) {
+            HuffmanTokenFormat.writeTokens(tokens, payload);
+            type = BLOCK_HUFFMAN;
+        } else if (coding == TokenCoding.FSE) {
+            FseTokenFormat.writeTokens(tokens, payload);
+            type = BLOCK_FSE;
+        } else if (coding == TokenCoding.SEQUENCES) {
+            SequenceFormat.writeTokens(tokens, sequences, payload);
+            type = BLOCK_SEQUENCES;
+        } else {
+            writeTokens(tokens, payload, VERSION);
+            type = BLOCK_TOKENS;
+        }
+        payload.flush();
+        if (type == BLOCK_TOKENS) {
+            // Long literal runs, as in poorly compressible data, cost less as sequences
+            sequences.clear();
+            sequences.addTokens(tokens);
+            if (SequenceFormat.payloadSize(sequences) < payload.size()) {
+                payload.reset();
+                SequenceFormat.writeSequences(sequences, payload);
+                payload.flush();
+                type = BLOCK_SEQUENCES;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Parses a token block payload of the given type, from a container of the given version,
+     * into tokens, checking that they decode to the framed length. Sequence and stored blocks
+     * are read by {@link BlockPayloadDecoder} instead.
+     */
+    static void readPayload(int type, int version, byte[] payload, int offset, int payloadLength, int length,
+                            TokenBuffer tokens) throws IOException {
+        BitReader bits = new BitReader(payload, offset, payloadLength);
+        try {
+            if (blockKind(type) == BLOCK_HUFFMAN) {
+                HuffmanTokenFormat.readTokens(bits, tokens);
+            } else if (blockKind(type) == BLOCK_FSE) {
+                FseTokenFormat.readTokens(payload, offset, payloadLength, length, tokens);
+            } else {
+                readTokens(bits, tokens, version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated block payload", e);
+        }
+        if (tokens.getDecodedLength() != length) {
+            throw new IOException("Block length mismatch");
+        }
+    }
+
+    /**
+     * Writes a token block: its frame followed by the payload, and records it in the index.
+     */
+    static void writeBlock(DataOutputStream out, int kind, int length, boolean independent, BitWriter payload,
+                           BlockIndex index) throws IOException {
+        int type = independent ? kind | BLOCK_INDEPENDENT : kind;
+        out.writeByte(type);
+        out.writeInt(length);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        index.add(type, length, payload.size());
+    }
+
+    /**
+     * Returns a block type without its flags.
+     */
+    static int blockKind(int type) {
+        return type & ~BLOCK_INDEPENDENT;
+    }
+
+    /**
+     * Returns whether a block type, with or without flags, holds data this version can read.
+     */
+    static boolean isDataBlock(int type) {
+        int kind = blockKind(type);
+        return kind == BLOCK_TOKENS || kind == BLOCK_HUFFMAN || kind == BLOCK_FSE || kind == BLOCK_SEQUENCES
+                || kind == BLOCK_STORED;
+    }
+
+    /**
+     * Writes tokens using the efficient binary format:
+     * - Header: number of tokens (32 bits)
+     * - Flag bit: 0 for literal, 1 for match
+     * - For literals: 8 bits for the byte
+     * - For matches: variable-length distance and length, then 8 bits for the next byte
+     * <p>
+     * Before {@link #LEB128_VERSION} distances and lengths are limited to {@link #LEGACY_MAX_VALUE}.
+     *
+     * @throws IllegalArgumentException if a distance or length does not fit the given version
+     */
+    static void writeTokens(TokenBuffer tokens, BitWriter out, int version) {
+        boolean leb128 = version >= LEB128_VERSION;
+        out.writeInt(tokens.size());
+
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getLength(i) == 0) {
+                // Literal token: flag bit 0 followed by the byte, as one 9-bit field
+                out.writeBits(tokens.getNextByte(i), 9);
+            } else {
+                // Match token: write flag bit 1 followed by distance, length, and next byte
+                out.writeBit(1);
+
+                // Use variable-length encoding for distance and length
+                if (leb128) {
+                    writeLeb128(out, tokens.getDistance(i));
+                    writeLeb128(out, tokens.getLength(i));
+                } else {
+                    writeVariableLength(out, tokens.getDistance(i));
+                    writeVariableLength(out, tokens.getLength(i));
+                }
+
+                // Write next byte
+                out.writeByte(tokens.getNextByte(i));
+            }
+        }
+    }
+
+    /**
+     * Reads tokens written by {@link #writeTokens} for the given version into a buffer, which is
+     * cleared first.
+     */
+    static void readTokens(BitReader in, TokenBuffer tokens, int version) throws IOException {
+        boolean leb128 = version >= LEB128_VERSION;
+        tokens.clear();
+        int tokenCount = in.readInt();
+
+        for (int i = 0; i < tokenCount; i++) {
+            int flag = in.readBit();
+
+            if (flag == 0) {
+                // Literal token
+                tokens.addLiteral(in.readByte());
+            } else {
+                // Match token
+                int distance = leb128 ? readLeb128(in) : readVariableLength(in);
+                int length = leb128 ? readLeb128(in) : readVariableLength(in);
+                int nextByte = in.readByte();
+                if (length > TokenBuffer.MAX_LENGTH) {
+                    throw new IOException("Corrupt match token");
+                }
+
+                tokens.addMatch(distance, length, nextByte);
+            }
+        }
+    }
+
+    /**
+     * Writes a value using a variable-length encoding:
+     * - Values 0-127: 8 bits with high bit = 0
+     * - Values 128-16383: 16 bits with high bit of first byte = 1
+     */
+    private static void writeVariableLength(BitWriter out, int value) {
+        if (value > LEGACY_MAX_VALUE) {
+            throw new IllegalArgumentException("Value " + value + " does not fit the two-byte format");
+        }
+        if (value < 128) {
+            // Small value: 1 byte (high bit = 0)
+            out.writeByte(value);
+        } else {
+            // Larger value: 2 bytes (high bit of first byte = 1)
+            int highByte = (value >> 7) | 0x80;
+            int lowByte = value & 0x7F;
+            out.writeByte(highByte);
+            out.writeByte(lowByte);
+        }
+    }
+
+    /**
+     * Reads a value using variable-length encoding.
+     */
+    private static int readVariableLength(BitReader in) throws EOFException {
+        int firstByte = in.readByte() & 0xFF;
+
+        // Check if high bit is set
+        if ((firstByte & 0x80) == 0) {
+            // Small value: just return the byte
+            return firstByte;
+        } else {
+            // Larger value: combine with second byte
+            int highBits = firstByte & 0x7F;
+            int lowBits = in.readByte() & 0x7F;
+            return (highBits << 7) | lowBits;
+        }
+    }
+
+    /**
+     * Writes a non-negative value in LEB128 form: seven bits per byte, least significant group
+     * first, with the high bit set on every byte but the last. Values below 128 take one byte.
+     */
+    static void writeLeb128(BitWriter out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads a value written by {@link #writeLeb128}.
+     *
+     * @throws IOException if the value runs past five bytes or does not fit a non-negative int
+     */
+    static int readLeb128(BitReader in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            int group = in.readByte() & 0xFF;
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        // The fifth group holds the top three bits and must end the value
+        int group = in.readByte() & 0xFF;
+        if (group > 0x07) {
+            throw new IOException("Corrupt variable-length value");
+        }
+        return value | group << 28;
+    }
+}
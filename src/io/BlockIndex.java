@@ -0,0 +1,196 @@
+package io;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Index of the blocks in a container, written as a trailer after the end marker:
+ * <pre>
+ *   block count (32 bits)
+ *   per block: type (8 bits) | uncompressed length (32 bits) | payload length (32 bits)
+ *   index offset (64 bits) | magic "LZ77" (32 bits)
+ * </pre>
+ * The fixed-size footer at the very end of the file locates the index, from which the file
+ * and uncompressed offsets of every block follow by summing the sizes before it.
+ */
+final class BlockIndex {
+    static final int ENTRY_SIZE = 9;
+    static final int FOOTER_SIZE = 12;
+
+    private int count;
+    private byte[] types = new byte[16];
+    private int[] rawLengths = new int[16];
+    private int[] payloadLengths = new int[16];
+    private long[] blockOffsets = new long[16];
+    private long[] rawOffsets = new long[16];
+
+    private long nextBlockOffset;
+    private long nextRawOffset;
+
+    /**
+     * Constructs an empty index whose first block starts at the given file offset.
+     */
+    BlockIndex(long dataStart) {
+        this.nextBlockOffset = dataStart;
+    }
+
+    /**
+     * Records the next block of the container.
+     */
+    void add(int type, int rawLength, int payloadLength) {
+        if (count == types.length) {
+            int capacity = count * 2;
+            types = Arrays.copyOf(types, capacity);
+            rawLengths = Arrays.copyOf(rawLengths, capacity);
+            payloadLengths = Arrays.copyOf(payloadLengths, capacity);
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            rawOffsets = Arrays.copyOf(rawOffsets, capacity);
+        }
+        types[count] = (byte) type;
+        rawLengths[count] = rawLength;
+        payloadLengths[count] = payloadLength;
+        blockOffsets[count] = nextBlockOffset;
+        rawOffsets[count] = nextRawOffset;
+        count++;
+
+        nextBlockOffset += BlockFormat.BLOCK_FRAME_SIZE + payloadLength;
+        nextRawOffset += rawLength;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int getType(int block) {
+        return types[block] & 0xFF;
+    }
+
+    /**
+     * Returns whether a block can be decoded without the blocks before it.
+     */
+    boolean isIndependent(int block) {
+        return block == 0 || (types[block] & BlockFormat.BLOCK_INDEPENDENT) != 0;
+    }
+
+    int getRawLength(int block) {
+        return rawLengths[block];
+    }
+
+    int getPayloadLength(int block) {
+        return payloadLengths[block];
+    }
+
+    /**
+     * Returns the file offset of a block's frame.
+     */
+    long getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    /**
+     * Returns the offset of a block's first byte in the uncompressed data.
+     */
+    long getRawOffset(int block) {
+        return rawOffsets[block];
+    }
+
+    /**
+     * Returns the total uncompressed size of the indexed blocks.
+     */
+    long getRawSize() {
+        return nextRawOffset;
+    }
+
+    /**
+     * Returns the block containing an uncompressed offset, or -1 if it is past the end.
+     */
+    int findBlock(long rawOffset) {
+        if (rawOffset < 0 || rawOffset >= nextRawOffset) {
+            return -1;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rawOffsets[mid] <= rawOffset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes the trailer. Must be called right after the end marker, which follows the last block.
+     */
+    void write(DataOutputStream out) throws IOException {
+        long indexOffset = nextBlockOffset + 1;
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeByte(types[i]);
+            out.writeInt(rawLengths[i]);
+            out.writeInt(payloadLengths[i]);
+        }
+        out.writeLong(indexOffset);
+        out.writeInt(BlockFormat.MAGIC);
+    }
+
+    /**
+     * Reads the trailer of a container whose blocks start at the given offset.
+     *
+     * @return the index, or null if the file has no valid trailer
+     */
+    static BlockIndex read(FileChannel channel, long dataStart) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < dataStart + 1 + 4 + FOOTER_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        readFully(channel, footer, fileSize - FOOTER_SIZE);
+        long indexOffset = footer.getLong(0);
+        if (footer.getInt(8) != BlockFormat.MAGIC || indexOffset <= dataStart || indexOffset > fileSize - FOOTER_SIZE - 4) {
+            return null;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate((int) Math.min(fileSize - FOOTER_SIZE - indexOffset, Integer.MAX_VALUE));
+        readFully(channel, entries, indexOffset);
+        int blockCount = entries.getInt(0);
+        if (blockCount < 0 || 4 + (long) blockCount * ENTRY_SIZE != entries.capacity()) {
+            throw new IOException("Corrupt block index");
+        }
+
+        BlockIndex index = new BlockIndex(dataStart);
+        for (int i = 0; i < blockCount; i++) {
+            int position = 4 + i * ENTRY_SIZE;
+            int type = entries.get(position) & 0xFF;
+            int rawLength = entries.getInt(position + 1);
+            int payloadLength = entries.getInt(position + 5);
+            if (!BlockFormat.isDataBlock(type) || rawLength < 0 || payloadLength < 0) {
+                throw new IOException("Corrupt block index");
+            }
+            index.add(type, rawLength, payloadLength);
+        }
+        if (index.nextBlockOffset + 1 != indexOffset) {
+            throw new IOException("Block index does not match the container");
+        }
+        return index;
+    }
+
+    /**
+     * Fills a buffer from a channel starting at the given file position.
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io;
+
+import core.CodecListener;
+import core.LZ77Decoder;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.io.IOException;
+
+/**
+ * Decodes block payloads of every kind into an output buffer, reusing its token and sequence
+ * buffers from one block to the next.
+ */
+final class BlockPayloadDecoder {
+    private final LZ77Decoder decoder;
+    private final int version;
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final SequenceBuffer sequences = new SequenceBuffer();
+
+    /**
+     * Constructs a payload decoder for a container of the given version.
+     */
+    BlockPayloadDecoder(LZ77Decoder decoder, int version) {
+        this.decoder = decoder;
+        this.version = version;
+    }
+
+    /**
+     * Parses a payload of the given block type and decodes it at {@code outputOffset}, where the
+     * window before it must already be in place.
+     *
+     * @param length the uncompressed length framed for the block
+     * @throws IOException if the payload is corrupt, such as a match reaching back before the
+     *                     window, or does not decode to {@code length} bytes
+     */
+    void decode(int type, byte[] payload, int offset, int payloadLength, int length, byte[] output,
+                int outputOffset) throws IOException {
+        int kind = BlockFormat.blockKind(type);
+        if (kind == BlockFormat.BLOCK_STORED) {
+            if (payloadLength != length) {
+                throw new IOException("Block length mismatch");
+            }
+            System.arraycopy(payload, offset, output, outputOffset, length);
+            if (CodecListener.ENABLED) {
+                decoder.getListener().onBlockDecoded(length);
+            }
+        } else if (kind == BlockFormat.BLOCK_SEQUENCES) {
+            SequenceFormat.readSequences(payload, offset, payloadLength, sequences);
+            if (sequences.getDecodedLength() != length) {
+                throw new IOException("Block length mismatch");
+            }
+            try {
+                decoder.decodeBlock(sequences, output, outputOffset);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        } else {
+            BlockFormat.readPayload(type, version, payload, offset, payloadLength, length, tokens);
+            try {
+                decoder.decodeBlock(tokens, output, outputOffset);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
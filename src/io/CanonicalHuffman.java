@@ -0,0 +1,218 @@
+package io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Length-limited canonical Huffman codes.
+ * <p>
+ * Only the code length of each symbol is stored; codes are assigned in canonical order (shorter
+ * codes first, then by symbol), so the encoder and decoder derive the same codes from the lengths.
+ * Decoding uses a single lookup table indexed by the next {@code maxLength} bits of input.
+ */
+final class CanonicalHuffman {
+    static final int MAX_CODE_LENGTH = 15;
+
+    private CanonicalHuffman() {
+    }
+
+    /**
+     * Computes code lengths no longer than {@code maxLength} for the given symbol frequencies.
+     * Unused symbols get length 0; a lone used symbol gets length 1.
+     */
+    static int[] codeLengths(int[] frequencies, int maxLength) {
+        int[] lengths = new int[frequencies.length];
+
+        // Used symbols sorted by ascending frequency, ties broken by symbol
+        long[] keys = new long[frequencies.length];
+        int used = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                keys[used++] = ((long) frequencies[symbol] << 20) | symbol;
+            }
+        }
+        if (used == 0) {
+            return lengths;
+        }
+        if (used == 1) {
+            lengths[(int) (keys[0] & 0xFFFFF)] = 1;
+            return lengths;
+        }
+        Arrays.sort(keys, 0, used);
+
+        // Build the tree with two queues: sorted leaves, and internal nodes in creation order
+        int nodes = 2 * used - 1;
+        long[] weights = new long[nodes];
+        int[] parents = new int[nodes];
+        for (int i = 0; i < used; i++) {
+            weights[i] = keys[i] >>> 20;
+        }
+        int nextLeaf = 0;
+        int nextInternal = used;
+        for (int node = used; node < nodes; node++) {
+            for (int child = 0; child < 2; child++) {
+                int smallest;
+                if (nextLeaf < used && (nextInternal == node || weights[nextLeaf] <= weights[nextInternal])) {
+                    smallest = nextLeaf++;
+                } else {
+                    smallest = nextInternal++;
+                }
+                parents[smallest] = node;
+                weights[node] += weights[smallest];
+            }
+        }
+
+        // Depths from the root down, counting how many leaves end up at each depth
+        int[] depths = new int[nodes];
+        int[] counts = new int[maxLength + 1];
+        for (int node = nodes - 2; node >= 0; node--) {
+            depths[node] = depths[parents[node]] + 1;
+            if (node < used) {
+                counts[Math.min(depths[node], maxLength)]++;
+            }
+        }
+
+        // Leaves clamped to maxLength oversubscribe the code space; lengthen shorter codes until
+        // the Kraft sum is exactly one again
+        long total = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            total += (long) counts[length] << (maxLength - length);
+        }
+        while (total > 1L << maxLength) {
+            counts[maxLength]--;
+            for (int length = maxLength - 1; length > 0; length--) {
+                if (counts[length] > 0) {
+                    counts[length]--;
+                    counts[length + 1] += 2;
+                    break;
+                }
+            }
+            total--;
+        }
+
+        // The least frequent symbols take the longest codes
+        int next = 0;
+        for (int length = maxLength; length > 0; length--) {
+            for (int i = 0; i < counts[length]; i++) {
+                lengths[(int) (keys[next++] & 0xFFFFF)] = length;
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Assigns canonical codes to the given code lengths.
+     */
+    static int[] codes(int[] lengths) {
+        int[] counts = new int[MAX_CODE_LENGTH + 1];
+        for (int length : lengths) {
+            counts[length]++;
+        }
+        counts[0] = 0;
+
+        int[] nextCode = new int[MAX_CODE_LENGTH + 1];
+        int code = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            code = (code + counts[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+
+        int[] codes = new int[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                codes[symbol] = nextCode[lengths[symbol]]++;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Writes code lengths as a count of symbols, up to the last used one, followed by four bits
+     * per symbol.
+     */
+    static void writeLengths(BitWriter out, int[] lengths, int countBits) {
+        int count = lengths.length;
+        while (count > 0 && lengths[count - 1] == 0) {
+            count--;
+        }
+        out.writeBits(count, countBits);
+        for (int i = 0; i < count; i++) {
+            out.writeBits(lengths[i], 4);
+        }
+    }
+
+    /**
+     * Reads code lengths written by {@link #writeLengths} for an alphabet of the given size.
+     */
+    static int[] readLengths(BitReader in, int alphabetSize, int countBits) throws IOException {
+        int count = in.readBits(countBits);
+        if (count > alphabetSize) {
+            throw new IOException("Invalid Huffman table");
+        }
+        int[] lengths = new int[alphabetSize];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = in.readBits(4);
+        }
+        return lengths;
+    }
+
+    /**
+     * Decodes symbols of one canonical code through a lookup table.
+     */
+    static final class Decoder {
+        private final int tableBits;
+        // Symbol << 4 | code length, for every value of the next tableBits bits; 0 if unassigned
+        private final int[] table;
+
+        /**
+         * Builds the lookup table for the given code lengths.
+         *
+         * @throws IOException if the lengths do not form a valid prefix code
+         */
+        Decoder(int[] lengths) throws IOException {
+            int maxLength = 0;
+            for (int length : lengths) {
+                maxLength = Math.max(maxLength, length);
+            }
+            this.tableBits = Math.max(maxLength, 1);
+            this.table = new int[1 << tableBits];
+
+            // Check the Kraft inequality first: canonical codes of lengths that break it run past
+            // the end of the table, and not necessarily for the last symbol filled in
+            long used = 0;
+            for (int length : lengths) {
+                if (length != 0) {
+                    used += 1 << (tableBits - length);
+                }
+            }
+            if (used > table.length) {
+                throw new IOException("Invalid Huffman table");
+            }
+
+            int[] codes = codes(lengths);
+            for (int symbol = 0; symbol < lengths.length; symbol++) {
+                int length = lengths[symbol];
+                if (length == 0) {
+                    continue;
+                }
+                int span = 1 << (tableBits - length);
+                int start = codes[symbol] << (tableBits - length);
+                Arrays.fill(table, start, start + span, (symbol << 4) | length);
+            }
+        }
+
+        /**
+         * Reads one symbol.
+         *
+         * @throws IOException if the input is exhausted or holds an unassigned code
+         */
+        int decode(BitReader in) throws IOException {
+            int entry = table[in.peekBits(tableBits)];
+            if (entry == 0) {
+                throw new IOException("Invalid Huffman code");
+            }
+            in.skipBits(entry & 0xF);
+            return entry >>> 4;
+        }
+    }
+}
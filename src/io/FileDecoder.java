@@ -1,167 +1,215 @@
 package io;
 
 import model.LZ77Token;
+import model.PresetDictionary;
+import model.TokenBuffer;
 import core.LZ77Decoder;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Utility class for decoding a file compressed with LZ77.
  */
 public class FileDecoder {
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
     private final LZ77Decoder decoder;
+    private final ExecutorService executor;
+    private final TokenBuffer tokens = new TokenBuffer();
 
     public FileDecoder(LZ77Decoder decoder) {
+        this(decoder, null);
+    }
+
+    /**
+     * Constructs a file decoder that decodes independent runs of blocks concurrently on the
+     * given executor, using the container's block index.
+     *
+     * @param decoder  the decoder used for each block
+     * @param executor the executor running block decodes, or null to decode sequentially
+     */
+    public FileDecoder(LZ77Decoder decoder, ExecutorService executor) {
         this.decoder = decoder;
+        this.executor = executor;
     }
 
     /**
      * Decodes an input file and writes the decoded content to an output file.
+     * Containers with a block index are read with positional channel reads and each block is
+     * written straight to its place in the output file, in parallel when an executor is set.
+     * Version 1 containers are streamed through an {@link LZ77InputStream}, and files in the
+     * single-block efficient format are still accepted.
      *
      * @param inputFile  the compressed file
      * @param outputFile the destination output file
      * @return decoding time in nanoseconds
      */
     public long decodeFile(String inputFile, String outputFile) throws IOException {
-        List<LZ77Token> tokens = readEfficientFormat(inputFile);
+        if (!isContainer(inputFile)) {
+            readEfficientFormat(inputFile, tokens);
+            long startTime = System.nanoTime();
+            byte[] decodedContent;
+            try {
+                decodedContent = decoder.decodeBytes(tokens);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            Files.write(Paths.get(outputFile), decodedContent);
+            return System.nanoTime() - startTime;
+        }
+
+        try (FileChannel in = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)) {
+            int[] sizes = BlockFormat.readHeader(in);
+            BlockIndex index = sizes[2] >= 2 ? BlockIndex.read(in, BlockFormat.headerSize(sizes[2])) : null;
+            if (index != null) {
+                PresetDictionary dictionary = BlockFormat.dictionaryFor(sizes[3], decoder);
+                return decodeIndexed(in, index, sizes[0], sizes[1], sizes[2], dictionary, outputFile);
+            }
+        }
+
         long startTime = System.nanoTime();
-        String decodedContent = decoder.decode(tokens);
-        Files.write(Paths.get(outputFile), decodedContent.getBytes());
+        try (LZ77InputStream in = new LZ77InputStream(
+                new BufferedInputStream(new FileInputStream(inputFile)), decoder);
+             OutputStream out = Channels.newOutputStream(FileChannel.open(Paths.get(outputFile),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            byte[] chunk = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
         return System.nanoTime() - startTime;
     }
 
     /**
-     * Reads tokens from a file using the efficient binary format.
+     * Decodes every block of an indexed container into the output file, preallocated to the
+     * uncompressed size. With an executor, the blocks are split into runs that each start at an
+     * independent block and the runs are decoded concurrently.
      */
-    public List<LZ77Token> readEfficientFormat(String inputFile) throws IOException {
-        List<LZ77Token> tokens = new ArrayList<>();
+    private long decodeIndexed(FileChannel in, BlockIndex index, int windowSize, int blockSize, int version,
+                               PresetDictionary dictionary, String outputFile) throws IOException {
+        List<Future<Void>> runs = new ArrayList<>();
 
-        try (BitInputStream in = new BitInputStream(new FileInputStream(inputFile))) {
-            int tokenCount = in.readInt();
+        long startTime = System.nanoTime();
+        try (RandomAccessFile output = new RandomAccessFile(outputFile, "rw")) {
+            output.setLength(index.getRawSize());
+            FileChannel out = output.getChannel();
+            if (executor == null) {
+                decodeRun(in, out, index, windowSize, blockSize, version, dictionary, 0, index.size());
+                return System.nanoTime() - startTime;
+            }
 
-            for (int i = 0; i < tokenCount; i++) {
-                int flag = in.readBit();
-
-                if (flag == 0) {
-                    // Literal token
-                    int nextChar = in.readByte() & 0xFF;
-                    tokens.add(new LZ77Token(0, 0, (char) nextChar));
-                } else {
-                    // Match token
-                    int distance = readVariableLength(in);
-                    int length = readVariableLength(in);
-                    int nextChar = in.readByte() & 0xFF;
-
-                    tokens.add(new LZ77Token(distance, length, (char) nextChar));
+            int first = 0;
+            for (int block = 1; block <= index.size(); block++) {
+                if (block == index.size() || index.isIndependent(block)) {
+                    int from = first;
+                    int to = block;
+                    runs.add(executor.submit(() -> decodeRun(in, out, index, windowSize, blockSize, version,
+                            dictionary, from, to)));
+                    first = block;
                 }
             }
-        }
 
-        return tokens;
+            for (Future<Void> run : runs) {
+                awaitRun(run);
+            }
+        } finally {
+            for (Future<Void> run : runs) {
+                run.cancel(true);
+            }
+        }
+        return System.nanoTime() - startTime;
     }
 
     /**
-     * Reads tokens from a file using the original inefficient format (kept for compatibility).
+     * Decodes blocks [from, to) on the calling thread and writes them to the output file.
      */
-    public List<LZ77Token> readTokensFromFile(String inputFile) throws IOException {
-        List<LZ77Token> tokens = new ArrayList<>();
-        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile))) {
-            int tokenCount = in.readInt();
-            for (int i = 0; i < tokenCount; i++) {
-                int distance = in.readInt();
-                int length = in.readInt();
-                char nextCharacter = in.readChar();
-                tokens.add(new LZ77Token(distance, length, nextCharacter));
+    private Void decodeRun(FileChannel in, FileChannel out, BlockIndex index, int windowSize, int blockSize,
+                           int version, PresetDictionary dictionary, int from, int to) throws IOException {
+        IndexedBlockDecoder blocks = new IndexedBlockDecoder(in, index, decoder, windowSize, blockSize, version,
+                dictionary);
+        blocks.seek(from);
+        for (int block = from; block < to; block++) {
+            int start = blocks.decodeNext();
+            ByteBuffer decoded = ByteBuffer.wrap(blocks.getBuffer(), start, index.getRawLength(block));
+            long position = index.getRawOffset(block);
+            while (decoded.hasRemaining()) {
+                position += out.write(decoded, position);
             }
         }
-        return tokens;
+        return null;
     }
 
     /**
-     * Reads a value using variable-length encoding.
+     * Waits for a run of blocks to finish decoding.
      */
-    private int readVariableLength(BitInputStream in) throws IOException {
-        int firstByte = in.readByte() & 0xFF;
-
-        // Check if high bit is set
-        if ((firstByte & 0x80) == 0) {
-            // Small value: just return the byte
-            return firstByte;
-        } else {
-            // Larger value: combine with second byte
-            int highBits = firstByte & 0x7F;
-            int lowBits = in.readByte() & 0x7F;
-            return (highBits << 7) | lowBits;
+    private void awaitRun(Future<Void> run) throws IOException {
+        try {
+            run.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding blocks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Block decoding failed", e.getCause());
         }
     }
-}
-
-/**
- * Utility class for reading individual bits from a stream.
- */
-class BitInputStream implements AutoCloseable {
-    private InputStream in;
-    private int buffer;
-    private int bitsRemaining;
-
-    public BitInputStream(InputStream in) {
-        this.in = in;
-        this.buffer = 0;
-        this.bitsRemaining = 0;
-    }
 
     /**
-     * Reads a single bit from the stream.
+     * Checks whether a file starts with the block container magic number.
      */
-    public int readBit() throws IOException {
-        if (bitsRemaining == 0) {
-            buffer = in.read();
-            if (buffer == -1) {
-                throw new EOFException("End of file reached");
-            }
-            bitsRemaining = 8;
+    private boolean isContainer(String inputFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile))) {
+            return in.readInt() == BlockFormat.MAGIC;
+        } catch (EOFException e) {
+            return false;
         }
-
-        int bit = (buffer >> (bitsRemaining - 1)) & 1;
-        bitsRemaining--;
-        return bit;
     }
 
     /**
-     * Reads a byte from the stream.
+     * Reads tokens from a file using the efficient binary format.
      */
-    public int readByte() throws IOException {
-        if (bitsRemaining == 0) {
-            return in.read();
-        }
-
-        // Read bit by bit
-        int result = 0;
-        for (int i = 0; i < 8; i++) {
-            result = (result << 1) | readBit();
-        }
-        return result;
+    public List<LZ77Token> readEfficientFormat(String inputFile) throws IOException {
+        TokenBuffer buffer = new TokenBuffer();
+        readEfficientFormat(inputFile, buffer);
+        return buffer.toList();
     }
 
     /**
-     * Reads an integer (32 bits) from the stream.
+     * Reads tokens from a file using the efficient binary format into a reusable buffer,
+     * which is cleared first.
      */
-    public int readInt() throws IOException {
-        int b1 = readByte();
-        int b2 = readByte();
-        int b3 = readByte();
-        int b4 = readByte();
-
-        return (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+    public void readEfficientFormat(String inputFile, TokenBuffer tokens) throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(inputFile));
+        BlockFormat.readTokens(new BitReader(content, 0, content.length), tokens, BlockFormat.HEADERLESS_VERSION);
     }
 
     /**
-     * Closes the underlying input stream.
+     * Reads tokens from a file using the original inefficient format (kept for compatibility).
      */
-    public void close() throws IOException {
-        in.close();
+    public List<LZ77Token> readTokensFromFile(String inputFile) throws IOException {
+        List<LZ77Token> tokens = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile))) {
+            int tokenCount = in.readInt();
+            for (int i = 0; i < tokenCount; i++) {
+                int distance = in.readInt();
+                int length = in.readInt();
+                char nextCharacter = in.readChar();
+                tokens.add(new LZ77Token(distance, length, nextCharacter));
+            }
+        }
+        return tokens;
     }
 }
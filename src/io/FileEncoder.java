@@ -1,37 +1,282 @@
 package io;
 
 import model.LZ77Token;
+import model.PresetDictionary;
+import model.SequenceBuffer;
+import model.TokenBuffer;
 import core.LZ77Encoder;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
- * Utility class for encoding a text file using LZ77 compression.
+ * Utility class for encoding a file using LZ77 compression.
  */
 public class FileEncoder {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RUNS_IN_FLIGHT = Runtime.getRuntime().availableProcessors() + 1;
+
     private final LZ77Encoder encoder;
+    private final int blockSize;
+    private final ExecutorService executor;
+    private final int resetInterval;
+    private final TokenCoding coding;
 
     public FileEncoder(LZ77Encoder encoder) {
+        this(encoder, LZ77OutputStream.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a file encoder that compresses in blocks of the given size, with a reset point
+     * every {@value LZ77OutputStream#DEFAULT_RESET_INTERVAL} blocks.
+     *
+     * @param encoder   the encoder used for each block
+     * @param blockSize the number of input bytes per block
+     */
+    public FileEncoder(LZ77Encoder encoder, int blockSize) {
+        this(encoder, blockSize, null, LZ77OutputStream.DEFAULT_RESET_INTERVAL);
+    }
+
+    /**
+     * Constructs a file encoder that compresses blocks concurrently on the given executor.
+     * Blocks are written in input order to the same container as the sequential encoder, so
+     * the output is readable by {@link FileDecoder} and {@link LZ77InputStream}.
+     *
+     * @param encoder     the encoder whose configuration is used on every worker
+     * @param blockSize   the number of input bytes per block
+     * @param executor    the executor running block encodes, or null to encode sequentially
+     * @param primeBlocks whether each block may refer back into the previous block's tail;
+     *                    otherwise blocks are fully independent and can also be decoded in
+     *                    parallel by {@link FileDecoder}
+     */
+    public FileEncoder(LZ77Encoder encoder, int blockSize, ExecutorService executor, boolean primeBlocks) {
+        this(encoder, blockSize, executor, primeBlocks ? 0 : 1);
+    }
+
+    /**
+     * Constructs a file encoder that starts a new, independent block every {@code resetInterval}
+     * blocks, with the default token coding.
+     *
+     * @param encoder       the encoder used for each block
+     * @param blockSize     the number of input bytes per block
+     * @param executor      the executor running block encodes, or null to encode sequentially
+     * @param resetInterval the number of blocks between reset points, or 0 to only start
+     *                      decoding at the first block
+     */
+    public FileEncoder(LZ77Encoder encoder, int blockSize, ExecutorService executor, int resetInterval) {
+        this(encoder, blockSize, executor, resetInterval, LZ77OutputStream.DEFAULT_CODING);
+    }
+
+    /**
+     * Constructs a file encoder that starts a new, independent block every {@code resetInterval}
+     * blocks and serializes tokens with the given coding.
+     * <p>
+     * Reset points bound how far {@link LZ77SeekableReader} has to decode to reach any offset.
+     * They are also where {@link FileDecoder} can split the work between threads.
+     *
+     * @param encoder       the encoder used for each block
+     * @param blockSize     the number of input bytes per block
+     * @param executor      the executor running block encodes, or null to encode sequentially
+     * @param resetInterval the number of blocks between reset points, or 0 to only start
+     *                      decoding at the first block
+     * @param coding        how the tokens of each block are serialized
+     * @throws IllegalArgumentException if the window or block size is out of range
+     */
+    public FileEncoder(LZ77Encoder encoder, int blockSize, ExecutorService executor, int resetInterval,
+                       TokenCoding coding) {
+        BlockFormat.checkSizes(encoder.getWindowSize(), blockSize);
+        if (resetInterval < 0) {
+            throw new IllegalArgumentException("Reset interval must not be negative: " + resetInterval);
+        }
         this.encoder = encoder;
+        this.blockSize = blockSize;
+        this.executor = executor;
+        this.resetInterval = resetInterval;
+        this.coding = coding;
     }
 
     /**
-     * Compresses an input text file into binary tokens using a more efficient format.
+     * Compresses an input file into the block container format. The input is memory-mapped and
+     * copied directly into the blocks being encoded, and the output is written through a
+     * {@link FileChannel}. Sequentially, the file is streamed through an {@link LZ77OutputStream}
+     * so memory use does not depend on its size; with an executor, a bounded number of blocks are
+     * encoded in parallel.
      *
      * @param inputFile  the file to encode
      * @param outputFile the destination for the encoded output
      * @return encoding time in milliseconds
      */
     public long encodeFile(String inputFile, String outputFile) throws IOException {
-        String content = readFileContent(inputFile);
+        if (executor != null) {
+            return encodeFileParallel(inputFile, outputFile);
+        }
+
         long startTime = System.nanoTime();
-        List<LZ77Token> tokens = encoder.encode(content);
-        writeEfficientFormat(tokens, outputFile);
+        try (MappedFileInput in = new MappedFileInput(Paths.get(inputFile));
+             LZ77OutputStream out = new LZ77OutputStream(
+                     openOutput(outputFile), encoder, blockSize, resetInterval, coding)) {
+            ByteBuffer region;
+            while ((region = in.nextRegion()) != null) {
+                out.write(region);
+            }
+        }
         return (System.nanoTime() - startTime) / 1_000_000;
     }
 
     /**
-     * Reads the content of a file into a string.
+     * Splits the input into runs of blocks, encodes each run on the executor and writes the blocks
+     * in order. A run is copied together with the full window of input before it, so matches reach
+     * as far back as with the sequential encoder, and its blocks are encoded one after the other
+     * by one worker, which keeps its match finder from block to block. Runs span at least a
+     * window, so the history indexed in front of each one costs at most as much again as the run
+     * itself, and they end before reset points, which need no history at all. At most
+     * {@link #MAX_RUNS_IN_FLIGHT} runs are held in memory at a time.
+     */
+    private long encodeFileParallel(String inputFile, String outputFile) throws IOException {
+        int windowSize = encoder.getWindowSize();
+        PresetDictionary dictionary = encoder.getDictionary();
+        int runBlocks = Math.max(1, (windowSize + blockSize - 1) / blockSize);
+        Queue<BlockWorker> idleWorkers = new ConcurrentLinkedQueue<>();
+        Deque<Future<List<EncodedBlock>>> pending = new ArrayDeque<>();
+        BlockIndex index = new BlockIndex(BlockFormat.HEADER_SIZE);
+
+        long startTime = System.nanoTime();
+        try (MappedFileInput in = new MappedFileInput(Paths.get(inputFile));
+             DataOutputStream out = new DataOutputStream(openOutput(outputFile))) {
+            BlockFormat.writeHeader(out, windowSize, blockSize, dictionary);
+
+            byte[] previous = null;
+            int previousEnd = 0;
+            long blockCount = 0;
+            while (true) {
+                // Each run carries the last window of input before it as history, taken from the
+                // previous run's history and data, except at reset points, which only carry the
+                // dictionary tail
+                boolean reset = previous == null || (resetInterval > 0 && blockCount % resetInterval == 0);
+                int blocks = runBlocks;
+                if (resetInterval > 0) {
+                    blocks = (int) Math.min(blocks, resetInterval - blockCount % resetInterval);
+                }
+                int historyLength;
+                if (reset) {
+                    historyLength = dictionary != null ? dictionary.tailLength(windowSize) : 0;
+                } else {
+                    historyLength = Math.min(previousEnd, windowSize);
+                }
+                byte[] run = new byte[historyLength + blocks * blockSize];
+                if (reset && dictionary != null) {
+                    dictionary.copyTail(historyLength, run, historyLength);
+                } else if (historyLength > 0) {
+                    System.arraycopy(previous, previousEnd - historyLength, run, 0, historyLength);
+                }
+                int length = in.read(run, historyLength, blocks * blockSize);
+                if (length == 0) {
+                    break;
+                }
+
+                pending.add(executor.submit(() -> encodeRun(run, historyLength, length, reset, idleWorkers)));
+                if (pending.size() >= MAX_RUNS_IN_FLIGHT) {
+                    writeEncodedRun(out, pending.poll(), index);
+                }
+
+                if (length < blocks * blockSize) {
+                    break;
+                }
+                previous = run;
+                previousEnd = historyLength + length;
+                blockCount += blocks;
+            }
+
+            while (!pending.isEmpty()) {
+                writeEncodedRun(out, pending.poll(), index);
+            }
+            out.writeByte(BlockFormat.BLOCK_END);
+            index.write(out);
+        } finally {
+            for (Future<List<EncodedBlock>> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    /**
+     * Opens a buffered stream writing to a file through a {@link FileChannel}, truncating it.
+     */
+    private static OutputStream openOutput(String outputFile) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+    }
+
+    /**
+     * Encodes a run of blocks on the calling thread, borrowing a worker from the idle pool. Each
+     * block after the first continues from the one before, as in {@link LZ77OutputStream}.
+     */
+    private List<EncodedBlock> encodeRun(byte[] run, int historyLength, int length, boolean independent,
+                                         Queue<BlockWorker> idleWorkers) {
+        BlockWorker worker = idleWorkers.poll();
+        if (worker == null) {
+            worker = new BlockWorker(encoder.newInstance());
+        }
+        try {
+            int windowSize = encoder.getWindowSize();
+            int end = historyLength + length;
+            List<EncodedBlock> blocks = new ArrayList<>();
+            boolean continued = false;
+            for (int offset = historyLength; offset < end; offset += blockSize) {
+                int blockLength = Math.min(blockSize, end - offset);
+                BitWriter payload = new BitWriter();
+                int kind = BlockFormat.encodePayload(worker.encoder, run, Math.max(0, offset - windowSize), offset,
+                        blockLength, continued, worker.tokens, worker.sequences, coding, payload);
+                blocks.add(new EncodedBlock(kind, blockLength, independent && offset == historyLength, payload));
+                // A stored block may not have reached the encoder, which then still indexes older blocks
+                continued = continued || kind != BlockFormat.BLOCK_STORED;
+            }
+            return blocks;
+        } finally {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    /**
+     * Waits for a run of blocks to finish encoding and appends them to the container.
+     */
+    private void writeEncodedRun(DataOutputStream out, Future<List<EncodedBlock>> future, BlockIndex index)
+            throws IOException {
+        List<EncodedBlock> blocks;
+        try {
+            blocks = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding blocks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Block encoding failed", e.getCause());
+        }
+        for (EncodedBlock block : blocks) {
+            BlockFormat.writeBlock(out, block.kind, block.length, block.independent, block.payload, index);
+        }
+    }
+
+    /**
+     * Reads the content of a file into a string, line by line. Line terminators are normalized to
+     * {@code '\n'} and the bytes are decoded as text, so this is only suitable for text files;
+     * {@link #encodeFile} compresses arbitrary bytes.
      */
     public String readFileContent(String inputFile) throws IOException {
         StringBuilder content = new StringBuilder();
@@ -47,32 +292,26 @@ public class FileEncoder {
     /**
      * Writes tokens to a file using an efficient binary format:
      * - Flag bit: 0 for literal, 1 for match
-     * - For literals: 8 bits for the character
-     * - For matches: 12 bits for distance, 4 bits for length, 8 bits for next char
+     * - For literals: 8 bits for the byte
+     * - For matches: 12 bits for distance, 4 bits for length, 8 bits for next byte
      *   (with special encoding for longer matches and distances)
      */
     public void writeEfficientFormat(List<LZ77Token> tokens, String outputFile) throws IOException {
-        try (BitOutputStream out = new BitOutputStream(new FileOutputStream(outputFile))) {
-            // Write header: number of tokens (32 bits)
-            out.writeInt(tokens.size());
-
-            for (LZ77Token token : tokens) {
-                if (token.getLength() == 0) {
-                    // Literal token: write flag bit 0 followed by character
-                    out.writeBit(0);
-                    out.writeByte((byte) token.getNextCharacter());
-                } else {
-                    // Match token: write flag bit 1 followed by distance, length, and next char
-                    out.writeBit(1);
-
-                    // Use variable-length encoding for distance and length
-                    writeVariableLength(out, token.getDistance());
-                    writeVariableLength(out, token.getLength());
+        writeEfficientFormat(TokenBuffer.fromList(tokens), outputFile);
+    }
 
-                    // Write next character
-                    out.writeByte((byte) token.getNextCharacter());
-                }
-            }
+    /**
+     * Writes a token buffer to a file using the efficient binary format. Distances and lengths
+     * are limited to 16383 in this format; larger windows need the block container.
+     *
+     * @throws IllegalArgumentException if a distance or length exceeds 16383
+     */
+    public void writeEfficientFormat(TokenBuffer tokens, String outputFile) throws IOException {
+        BitWriter out = new BitWriter();
+        BlockFormat.writeTokens(tokens, out, BlockFormat.HEADERLESS_VERSION);
+        out.flush();
+        try (OutputStream file = new FileOutputStream(outputFile)) {
+            out.writeTo(file);
         }
     }
 
@@ -91,95 +330,32 @@ public class FileEncoder {
     }
 
     /**
-     * Writes a value using a variable-length encoding:
-     * - Values 0-127: 8 bits with high bit = 0
-     * - Values 128-16383: 16 bits with high bit of first byte = 1
+     * An encoder and its scratch buffers, owned by one task at a time.
      */
-    private void writeVariableLength(BitOutputStream out, int value) throws IOException {
-        if (value < 128) {
-            // Small value: 1 byte (high bit = 0)
-            out.writeByte((byte) value);
-        } else {
-            // Larger value: 2 bytes (high bit of first byte = 1)
-            int highByte = (value >> 7) | 0x80;
-            int lowByte = value & 0x7F;
-            out.writeByte((byte) highByte);
-            out.writeByte((byte) lowByte);
-        }
-    }
-}
-
-/**
- * Utility class for writing individual bits to a stream.
- */
-class BitOutputStream implements AutoCloseable {
-    private OutputStream out;
-    private int buffer;
-    private int bitsInBuffer;
+    private static final class BlockWorker {
+        private final LZ77Encoder encoder;
+        private final TokenBuffer tokens = new TokenBuffer();
+        private final SequenceBuffer sequences = new SequenceBuffer();
 
-    public BitOutputStream(OutputStream out) {
-        this.out = out;
-        this.buffer = 0;
-        this.bitsInBuffer = 0;
-    }
-
-    /**
-     * Writes a single bit to the stream.
-     */
-    public void writeBit(int bit) throws IOException {
-        buffer = (buffer << 1) | (bit & 1);
-        bitsInBuffer++;
-
-        if (bitsInBuffer == 8) {
-            out.write(buffer);
-            buffer = 0;
-            bitsInBuffer = 0;
+        private BlockWorker(LZ77Encoder encoder) {
+            this.encoder = encoder;
         }
     }
 
     /**
-     * Writes a byte to the stream.
+     * The serialized payload of one block, waiting to be written.
      */
-    public void writeByte(byte b) throws IOException {
-        // If buffer is empty, write directly
-        if (bitsInBuffer == 0) {
-            out.write(b);
-        } else {
-            // Otherwise, write bit by bit
-            for (int i = 7; i >= 0; i--) {
-                writeBit((b >> i) & 1);
-            }
-        }
-    }
-
-    /**
-     * Writes an integer (32 bits) to the stream.
-     */
-    public void writeInt(int value) throws IOException {
-        writeByte((byte) (value >> 24));
-        writeByte((byte) (value >> 16));
-        writeByte((byte) (value >> 8));
-        writeByte((byte) value);
-    }
+    private static final class EncodedBlock {
+        private final int kind;
+        private final int length;
+        private final boolean independent;
+        private final BitWriter payload;
 
-    /**
-     * Flushes any remaining bits in the buffer, padding with zeros.
-     */
-    public void flush() throws IOException {
-        if (bitsInBuffer > 0) {
-            buffer <<= (8 - bitsInBuffer);
-            out.write(buffer);
-            buffer = 0;
-            bitsInBuffer = 0;
+        private EncodedBlock(int kind, int length, boolean independent, BitWriter payload) {
+            this.kind = kind;
+            this.length = length;
+            this.independent = independent;
+            this.payload = payload;
         }
-        out.flush();
-    }
-
-    /**
-     * Closes the stream, flushing any remaining bits.
-     */
-    public void close() throws IOException {
-        flush();
-        out.close();
     }
 }
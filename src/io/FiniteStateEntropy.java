@@ -0,0 +1,243 @@
+package io;
+
+import java.io.IOException;
+
+/**
+ * Table-based asymmetric numeral system (tANS) coding of symbol streams, in the style of FSE.
+ * <p>
+ * Symbol frequencies are normalized to a power-of-two table size {@code L = 1 << tableLog}, and
+ * each symbol owns as many of the {@code L} states as its normalized count. Coding a symbol moves
+ * the state between them while emitting a few low bits of the state, so the cost per symbol
+ * tracks its probability to a fraction of a bit, and both directions are one table lookup plus a
+ * shift. A stream is stored as
+ * <pre>
+ *   table log (4 bits) | symbol count (9 bits) | normalized counts (table log + 1 bits each)
+ *   final encoder state (table log bits) | state bits, in decoding order
+ * </pre>
+ * An empty stream is stored as a table log of 0.
+ */
+final class FiniteStateEntropy {
+    static final int MIN_TABLE_LOG = 5;
+    static final int MAX_TABLE_LOG = 12;
+
+    private static final int TABLE_LOG_BITS = 4;
+    private static final int SYMBOL_COUNT_BITS = 9;
+
+    private FiniteStateEntropy() {
+    }
+
+    /**
+     * Writes a stream of symbols smaller than {@code alphabetSize}, with a table no larger than
+     * {@code 1 << maxTableLog}.
+     */
+    static void writeStream(BitWriter out, int[] symbols, int count, int alphabetSize, int maxTableLog) {
+        if (count == 0) {
+            out.writeBits(0, TABLE_LOG_BITS);
+            return;
+        }
+        int[] frequencies = new int[alphabetSize];
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (frequencies[symbols[i]]++ == 0) {
+                used++;
+            }
+        }
+
+        int tableLog = tableLog(count, used, maxTableLog);
+        int[] counts = normalize(frequencies, count, tableLog);
+        writeTable(out, counts, tableLog);
+        encode(out, symbols, count, counts, tableLog);
+    }
+
+    /**
+     * Reads a stream written by {@link #writeStream} holding {@code count} symbols.
+     *
+     * @throws IOException if the stream is truncated or its table is invalid
+     */
+    static void readStream(BitReader in, int[] symbols, int count, int alphabetSize) throws IOException {
+        int tableLog = in.readBits(TABLE_LOG_BITS);
+        if (tableLog == 0) {
+            if (count > 0) {
+                throw new IOException("Missing entropy-coded stream");
+            }
+            return;
+        }
+        if (tableLog < MIN_TABLE_LOG || tableLog > MAX_TABLE_LOG) {
+            throw new IOException("Invalid table log: " + tableLog);
+        }
+        int[] counts = readTable(in, tableLog, alphabetSize);
+        decode(in, symbols, count, counts, tableLog);
+    }
+
+    /**
+     * Picks a table size: large enough to give every used symbol a few states, but no larger
+     * than the stream warrants.
+     */
+    private static int tableLog(int count, int used, int maxTableLog) {
+        int tableLog = Math.min(maxTableLog, highBit(count - 1) - 2);
+        tableLog = Math.max(tableLog, highBit(used) + 2);
+        return Math.max(MIN_TABLE_LOG, Math.min(MAX_TABLE_LOG, tableLog));
+    }
+
+    /**
+     * Returns the index of the highest set bit, or -1 for zero.
+     */
+    private static int highBit(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Scales frequencies to counts summing to {@code 1 << tableLog}, keeping every used symbol
+     * at a count of at least one.
+     */
+    static int[] normalize(int[] frequencies, int total, int tableLog) {
+        int tableSize = 1 << tableLog;
+        int[] counts = new int[frequencies.length];
+        int sum = 0;
+        int largest = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                counts[symbol] = Math.max(1, (int) ((long) frequencies[symbol] * tableSize / total));
+                sum += counts[symbol];
+                if (frequencies[symbol] > frequencies[largest]) {
+                    largest = symbol;
+                }
+            }
+        }
+
+        // Rounding down leaves states over; give them to the most frequent symbol
+        if (sum < tableSize) {
+            counts[largest] += tableSize - sum;
+            return counts;
+        }
+        // Raising rare symbols to one can overshoot; take states back from the largest counts
+        while (sum > tableSize) {
+            int victim = -1;
+            for (int symbol = 0; symbol < counts.length; symbol++) {
+                if (counts[symbol] > 1 && (victim < 0 || counts[symbol] > counts[victim])) {
+                    victim = symbol;
+                }
+            }
+            int take = Math.min(sum - tableSize, Math.max(1, counts[victim] / 4));
+            take = Math.min(take, counts[victim] - 1);
+            counts[victim] -= take;
+            sum -= take;
+        }
+        return counts;
+    }
+
+    private static void writeTable(BitWriter out, int[] counts, int tableLog) {
+        int symbolCount = counts.length;
+        while (counts[symbolCount - 1] == 0) {
+            symbolCount--;
+        }
+        out.writeBits(tableLog, TABLE_LOG_BITS);
+        out.writeBits(symbolCount, SYMBOL_COUNT_BITS);
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            out.writeBits(counts[symbol], tableLog + 1);
+        }
+    }
+
+    private static int[] readTable(BitReader in, int tableLog, int alphabetSize) throws IOException {
+        int symbolCount = in.readBits(SYMBOL_COUNT_BITS);
+        if (symbolCount > alphabetSize) {
+            throw new IOException("Invalid entropy table");
+        }
+        int[] counts = new int[alphabetSize];
+        int sum = 0;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            counts[symbol] = in.readBits(tableLog + 1);
+            sum += counts[symbol];
+        }
+        if (sum != 1 << tableLog) {
+            throw new IOException("Invalid entropy table");
+        }
+        return counts;
+    }
+
+    /**
+     * Assigns the states of the table to symbols, scattering each symbol's states across it.
+     */
+    private static int[] spread(int[] counts, int tableLog) {
+        int tableSize = 1 << tableLog;
+        int mask = tableSize - 1;
+        int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int[] stateSymbols = new int[tableSize];
+        int position = 0;
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            for (int i = 0; i < counts[symbol]; i++) {
+                stateSymbols[position] = symbol;
+                position = (position + step) & mask;
+            }
+        }
+        return stateSymbols;
+    }
+
+    /**
+     * Encodes the symbols in reverse, then writes the final state and the emitted bits in the
+     * order the decoder consumes them.
+     */
+    private static void encode(BitWriter out, int[] symbols, int count, int[] counts, int tableLog) {
+        int tableSize = 1 << tableLog;
+        int[] stateSymbols = spread(counts, tableLog);
+
+        // Next states grouped by symbol, and per-symbol transforms as in FSE
+        int[] cumulative = new int[counts.length + 1];
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            cumulative[symbol + 1] = cumulative[symbol] + counts[symbol];
+        }
+        int[] nextStates = new int[tableSize];
+        int[] fill = cumulative.clone();
+        for (int state = 0; state < tableSize; state++) {
+            nextStates[fill[stateSymbols[state]]++] = tableSize + state;
+        }
+        int[] deltaBits = new int[counts.length];
+        int[] deltaStates = new int[counts.length];
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            if (counts[symbol] == 0) {
+                continue;
+            }
+            int maxBitsOut = tableLog - (counts[symbol] == 1 ? 0 : highBit(counts[symbol] - 1));
+            deltaBits[symbol] = (maxBitsOut << 16) - (counts[symbol] << maxBitsOut);
+            deltaStates[symbol] = cumulative[symbol] - counts[symbol];
+        }
+
+        int[] values = new int[count];
+        byte[] widths = new byte[count];
+        int state = tableSize;
+        for (int i = count - 1; i >= 0; i--) {
+            int symbol = symbols[i];
+            int bits = (state + deltaBits[symbol]) >>> 16;
+            values[i] = state & ((1 << bits) - 1);
+            widths[i] = (byte) bits;
+            state = nextStates[(state >>> bits) + deltaStates[symbol]];
+        }
+
+        out.writeBits(state - tableSize, tableLog);
+        for (int i = 0; i < count; i++) {
+            out.writeBits(values[i], widths[i]);
+        }
+    }
+
+    private static void decode(BitReader in, int[] symbols, int count, int[] counts, int tableLog) throws IOException {
+        int tableSize = 1 << tableLog;
+        int[] stateSymbols = spread(counts, tableLog);
+
+        // Symbol | bits to read << 8 | base of the next state << 16, for every state
+        int[] table = new int[tableSize];
+        int[] next = counts.clone();
+        for (int state = 0; state < tableSize; state++) {
+            int symbol = stateSymbols[state];
+            int x = next[symbol]++;
+            int bits = tableLog - highBit(x);
+            table[state] = symbol | bits << 8 | ((x << bits) - tableSize) << 16;
+        }
+
+        int state = in.readBits(tableLog);
+        for (int i = 0; i < count; i++) {
+            int entry = table[state];
+            symbols[i] = entry & 0xFF;
+            state = (entry >>> 16) + in.readBits((entry >>> 8) & 0xFF);
+        }
+    }
+}
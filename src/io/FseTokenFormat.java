@@ -0,0 +1,148 @@
+package io;
+
+import model.TokenBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Entropy-coded token payload using tANS (see {@link FiniteStateEntropy}), with a separate
+ * stream and probability table for each kind of symbol.
+ * <p>
+ * Every token contributes its next byte to the literal stream and its length bucket to the
+ * length stream, where bucket 0 marks a literal token. Matches also contribute their distance
+ * bucket to the distance stream. The extra bits of lengths and distances (see
+ * {@link TokenSymbols}) go, in token order, to a fourth stream of raw bits. The payload layout is
+ * <pre>
+ *   token count (32 bits)
+ *   4 x (section length in bytes (32 bits) | section)
+ * </pre>
+ * with the literal, length, distance and extra-bit sections in that order. Each section can be
+ * decoded on its own in one tight loop.
+ */
+final class FseTokenFormat {
+    private static final int LITERAL_TABLE_LOG = 11;
+    private static final int LENGTH_TABLE_LOG = 9;
+    private static final int DISTANCE_TABLE_LOG = 9;
+    private static final int SECTION_COUNT = 4;
+
+    private FseTokenFormat() {
+    }
+
+    /**
+     * Writes tokens with tables built from their own symbol frequencies.
+     */
+    static void writeTokens(TokenBuffer tokens, BitWriter out) {
+        int tokenCount = tokens.size();
+        int[] literals = new int[tokenCount];
+        int[] lengths = new int[tokenCount];
+        int[] distances = new int[tokenCount];
+        int matchCount = 0;
+
+        BitWriter extraBits = new BitWriter();
+        for (int i = 0; i < tokenCount; i++) {
+            literals[i] = tokens.getNextByte(i);
+            int length = tokens.getLength(i);
+            lengths[i] = TokenSymbols.bucket(length);
+            if (length > 0) {
+                writeExtraBits(extraBits, lengths[i], length);
+                int distanceCode = TokenSymbols.bucket(tokens.getDistance(i) - 1);
+                distances[matchCount++] = distanceCode;
+                writeExtraBits(extraBits, distanceCode, tokens.getDistance(i) - 1);
+            }
+        }
+        extraBits.flush();
+
+        out.writeInt(tokenCount);
+        BitWriter section = new BitWriter();
+        FiniteStateEntropy.writeStream(section, literals, tokenCount, TokenSymbols.LITERAL_COUNT, LITERAL_TABLE_LOG);
+        writeSection(out, section);
+        section.reset();
+        FiniteStateEntropy.writeStream(section, lengths, tokenCount, TokenSymbols.BUCKET_COUNT, LENGTH_TABLE_LOG);
+        writeSection(out, section);
+        section.reset();
+        FiniteStateEntropy.writeStream(section, distances, matchCount, TokenSymbols.BUCKET_COUNT, DISTANCE_TABLE_LOG);
+        writeSection(out, section);
+        writeSection(out, extraBits);
+    }
+
+    /**
+     * Reads tokens written by {@link #writeTokens} from a payload into a buffer, which is cleared
+     * first. The uncompressed {@code rawLength} framed for the block bounds the token count, so a
+     * corrupt count cannot make the reader allocate more than the block could hold.
+     */
+    static void readTokens(byte[] payload, int offset, int payloadLength, int rawLength, TokenBuffer tokens)
+            throws IOException {
+        tokens.clear();
+        ByteBuffer header = ByteBuffer.wrap(payload, offset, payloadLength);
+        if (payloadLength < 4 * (SECTION_COUNT + 1)) {
+            throw new IOException("Truncated block payload");
+        }
+        // Every token decodes to at least one byte
+        int tokenCount = header.getInt(offset);
+        if (tokenCount < 0 || tokenCount > rawLength) {
+            throw new IOException("Corrupt token count");
+        }
+
+        // Locate the sections
+        int[] sectionOffsets = new int[SECTION_COUNT];
+        int[] sectionLengths = new int[SECTION_COUNT];
+        int position = offset + 4;
+        int end = offset + payloadLength;
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (end - position < 4) {
+                throw new IOException("Truncated block payload");
+            }
+            sectionLengths[i] = header.getInt(position);
+            sectionOffsets[i] = position + 4;
+            if (sectionLengths[i] < 0 || sectionLengths[i] > end - sectionOffsets[i]) {
+                throw new IOException("Truncated block payload");
+            }
+            position = sectionOffsets[i] + sectionLengths[i];
+        }
+
+        int[] literals = new int[tokenCount];
+        FiniteStateEntropy.readStream(new BitReader(payload, sectionOffsets[0], sectionLengths[0]),
+                literals, tokenCount, TokenSymbols.LITERAL_COUNT);
+        int[] lengths = new int[tokenCount];
+        FiniteStateEntropy.readStream(new BitReader(payload, sectionOffsets[1], sectionLengths[1]),
+                lengths, tokenCount, TokenSymbols.BUCKET_COUNT);
+        int matchCount = 0;
+        for (int i = 0; i < tokenCount; i++) {
+            if (lengths[i] != 0) {
+                matchCount++;
+            }
+        }
+        int[] distances = new int[matchCount];
+        FiniteStateEntropy.readStream(new BitReader(payload, sectionOffsets[2], sectionLengths[2]),
+                distances, matchCount, TokenSymbols.BUCKET_COUNT);
+
+        BitReader extraBits = new BitReader(payload, sectionOffsets[3], sectionLengths[3]);
+        int match = 0;
+        for (int i = 0; i < tokenCount; i++) {
+            if (lengths[i] == 0) {
+                tokens.addLiteral(literals[i]);
+                continue;
+            }
+            long length = readValue(extraBits, lengths[i]);
+            long distance = readValue(extraBits, distances[match++]) + 1;
+            if (length > TokenBuffer.MAX_LENGTH || distance > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt match token");
+            }
+            tokens.addMatch((int) distance, (int) length, literals[i]);
+        }
+    }
+
+    private static void writeSection(BitWriter out, BitWriter section) {
+        section.flush();
+        out.writeInt(section.size());
+        out.writeBytes(section.array(), 0, section.size());
+    }
+
+    private static void writeExtraBits(BitWriter out, int code, int value) {
+        out.writeBits(value - TokenSymbols.base(code), TokenSymbols.extraBits(code));
+    }
+
+    private static long readValue(BitReader in, int code) throws IOException {
+        return (long) TokenSymbols.base(code) + in.readBits(TokenSymbols.extraBits(code));
+    }
+}
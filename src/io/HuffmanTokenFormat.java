@@ -0,0 +1,114 @@
+package io;
+
+import model.TokenBuffer;
+import java.io.IOException;
+
+/**
+ * Entropy-coded token payload using canonical Huffman codes built for each block.
+ * <p>
+ * Two codes are used, as in deflate: one over literals and length buckets, and one over distance
+ * buckets (see {@link TokenSymbols}). A literal token is its literal symbol; a match token is its
+ * length bucket and extra bits, its distance bucket and extra bits, then its next byte as a
+ * literal symbol. The payload layout is
+ * <pre>
+ *   token count (32 bits)
+ *   literal/length code lengths | distance code lengths
+ *   coded tokens
+ * </pre>
+ * Lengths and distances are stored minus one, since neither can be zero in a match.
+ */
+final class HuffmanTokenFormat {
+    static final int LITERAL_LENGTH_SYMBOLS = TokenSymbols.LITERAL_COUNT + TokenSymbols.BUCKET_COUNT;
+
+    private static final int LITERAL_LENGTH_COUNT_BITS = 9;
+    private static final int DISTANCE_COUNT_BITS = 6;
+
+    private HuffmanTokenFormat() {
+    }
+
+    /**
+     * Writes tokens with codes built from their own symbol frequencies.
+     */
+    static void writeTokens(TokenBuffer tokens, BitWriter out) {
+        int[] literalLengthFrequencies = new int[LITERAL_LENGTH_SYMBOLS];
+        int[] distanceFrequencies = new int[TokenSymbols.BUCKET_COUNT];
+        for (int i = 0; i < tokens.size(); i++) {
+            int length = tokens.getLength(i);
+            if (length > 0) {
+                literalLengthFrequencies[TokenSymbols.LITERAL_COUNT + TokenSymbols.bucket(length - 1)]++;
+                distanceFrequencies[TokenSymbols.bucket(tokens.getDistance(i) - 1)]++;
+            }
+            literalLengthFrequencies[tokens.getNextByte(i)]++;
+        }
+
+        int[] literalLengthLengths = CanonicalHuffman.codeLengths(literalLengthFrequencies,
+                CanonicalHuffman.MAX_CODE_LENGTH);
+        int[] distanceLengths = CanonicalHuffman.codeLengths(distanceFrequencies, CanonicalHuffman.MAX_CODE_LENGTH);
+        int[] literalLengthCodes = CanonicalHuffman.codes(literalLengthLengths);
+        int[] distanceCodes = CanonicalHuffman.codes(distanceLengths);
+
+        out.writeInt(tokens.size());
+        CanonicalHuffman.writeLengths(out, literalLengthLengths, LITERAL_LENGTH_COUNT_BITS);
+        CanonicalHuffman.writeLengths(out, distanceLengths, DISTANCE_COUNT_BITS);
+
+        for (int i = 0; i < tokens.size(); i++) {
+            int length = tokens.getLength(i);
+            if (length > 0) {
+                int lengthCode = TokenSymbols.bucket(length - 1);
+                int symbol = TokenSymbols.LITERAL_COUNT + lengthCode;
+                out.writeBits(literalLengthCodes[symbol], literalLengthLengths[symbol]);
+                writeExtraBits(out, lengthCode, length - 1);
+
+                int distance = tokens.getDistance(i);
+                int distanceCode = TokenSymbols.bucket(distance - 1);
+                out.writeBits(distanceCodes[distanceCode], distanceLengths[distanceCode]);
+                writeExtraBits(out, distanceCode, distance - 1);
+            }
+            int nextByte = tokens.getNextByte(i);
+            out.writeBits(literalLengthCodes[nextByte], literalLengthLengths[nextByte]);
+        }
+    }
+
+    /**
+     * Reads tokens written by {@link #writeTokens} into a buffer, which is cleared first.
+     */
+    static void readTokens(BitReader in, TokenBuffer tokens) throws IOException {
+        tokens.clear();
+        int tokenCount = in.readInt();
+
+        CanonicalHuffman.Decoder literalLengths = new CanonicalHuffman.Decoder(
+                CanonicalHuffman.readLengths(in, LITERAL_LENGTH_SYMBOLS, LITERAL_LENGTH_COUNT_BITS));
+        CanonicalHuffman.Decoder distances = new CanonicalHuffman.Decoder(
+                CanonicalHuffman.readLengths(in, TokenSymbols.BUCKET_COUNT, DISTANCE_COUNT_BITS));
+
+        for (int i = 0; i < tokenCount; i++) {
+            int symbol = literalLengths.decode(in);
+            if (symbol < TokenSymbols.LITERAL_COUNT) {
+                tokens.addLiteral(symbol);
+                continue;
+            }
+
+            long length = readValue(in, symbol - TokenSymbols.LITERAL_COUNT) + 1;
+            long distance = readValue(in, distances.decode(in)) + 1;
+            int nextByte = literalLengths.decode(in);
+            if (length > TokenBuffer.MAX_LENGTH || distance > Integer.MAX_VALUE
+                    || nextByte >= TokenSymbols.LITERAL_COUNT) {
+                throw new IOException("Corrupt match token");
+            }
+            tokens.addMatch((int) distance, (int) length, nextByte);
+        }
+    }
+
+    private static void writeExtraBits(BitWriter out, int code, int value) {
+        int extraBits = TokenSymbols.extraBits(code);
+        if (extraBits > 0) {
+            out.writeBits(value - TokenSymbols.base(code), extraBits);
+        }
+    }
+
+    private static long readValue(BitReader in, int code) throws IOException {
+        int extraBits = TokenSymbols.extraBits(code);
+        int extra = extraBits > 0 ? in.readBits(extraBits) : 0;
+        return (long) TokenSymbols.base(code) + extra;
+    }
+}
@@ -0,0 +1,108 @@
+package io;
+
+import core.LZ77Decoder;
+import model.PresetDictionary;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Decodes a run of consecutive blocks of an indexed container, starting at an independent block.
+ * <p>
+ * Blocks are read with positional reads, so several decoders may share one channel. Like
+ * {@link LZ77InputStream}, each block is decoded into a buffer holding the last window of output
+ * before it, so memory stays fixed at one window plus one block.
+ */
+final class IndexedBlockDecoder {
+    private final FileChannel channel;
+    private final BlockIndex index;
+    private final int windowSize;
+    private final int blockSize;
+    private final BlockPayloadDecoder payloadDecoder;
+    private final PresetDictionary dictionary;
+    private ByteBuffer frame = ByteBuffer.allocate(0);
+
+    // Window followed by the last decoded block, which ends at blockEnd
+    private final byte[] buffer;
+    private int blockEnd;
+    private int nextBlock;
+
+    IndexedBlockDecoder(FileChannel channel, BlockIndex index, LZ77Decoder decoder, int windowSize, int blockSize,
+                        int version, PresetDictionary dictionary) {
+        this.channel = channel;
+        this.index = index;
+        this.windowSize = windowSize;
+        this.blockSize = blockSize;
+        this.payloadDecoder = new BlockPayloadDecoder(decoder, version);
+        this.dictionary = dictionary;
+        this.buffer = new byte[windowSize + blockSize];
+    }
+
+    /**
+     * Positions the decoder at an independent block, discarding the current window.
+     */
+    void seek(int block) {
+        if (!index.isIndependent(block)) {
+            throw new IllegalArgumentException("Block " + block + " depends on earlier blocks");
+        }
+        nextBlock = block;
+        blockEnd = 0;
+    }
+
+    /**
+     * Returns the index of the block {@link #decodeNext()} will decode.
+     */
+    int getNextBlock() {
+        return nextBlock;
+    }
+
+    /**
+     * Returns the buffer holding the decoded blocks.
+     */
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Reads and decodes the next block.
+     *
+     * @return the position of the block's first byte in {@link #getBuffer()}
+     * @throws IOException if the block cannot be read or does not match the index
+     */
+    int decodeNext() throws IOException {
+        int block = nextBlock;
+        int length = index.getRawLength(block);
+        int payloadLength = index.getPayloadLength(block);
+        if (length > blockSize) {
+            throw new IOException("Corrupt block header");
+        }
+
+        int frameSize = BlockFormat.BLOCK_FRAME_SIZE + payloadLength;
+        if (frame.capacity() < frameSize) {
+            frame = ByteBuffer.allocate(frameSize);
+        }
+        frame.clear().limit(frameSize);
+        BlockIndex.readFully(channel, frame, index.getBlockOffset(block));
+        if ((frame.get(0) & 0xFF) != index.getType(block) || frame.getInt(1) != length
+                || frame.getInt(5) != payloadLength) {
+            throw new IOException("Block " + block + " does not match the index");
+        }
+        // An independent block only sees the dictionary; otherwise slide the window to the front
+        // once the block would not fit behind it
+        if (index.isIndependent(block) && dictionary != null) {
+            blockEnd = dictionary.tailLength(windowSize);
+            dictionary.copyTail(blockEnd, buffer, blockEnd);
+        } else if (buffer.length - blockEnd < length) {
+            int keep = Math.min(blockEnd, windowSize);
+            System.arraycopy(buffer, blockEnd - keep, buffer, 0, keep);
+            blockEnd = keep;
+        }
+
+        int start = blockEnd;
+        payloadDecoder.decode(index.getType(block), frame.array(), BlockFormat.BLOCK_FRAME_SIZE, payloadLength, length,
+                buffer, start);
+        blockEnd += length;
+        nextBlock++;
+        return start;
+    }
+}
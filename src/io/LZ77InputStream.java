@@ -0,0 +1,132 @@
+package io;
+
+import core.LZ77Decoder;
+import model.PresetDictionary;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that decompresses data written by {@link LZ77OutputStream}.
+ * <p>
+ * Blocks are read and decoded one at a time into a buffer that keeps the last window of output
+ * before the current block, so back-references into previous blocks resolve while memory stays
+ * fixed at one window plus one block.
+ */
+public class LZ77InputStream extends InputStream {
+    private final DataInputStream in;
+    private final int windowSize;
+    private final int blockSize;
+    private final BlockPayloadDecoder payloadDecoder;
+    private final PresetDictionary dictionary;
+    private byte[] payload = new byte[0];
+
+    // Window followed by the current block: buffer[readPosition, blockEnd) is still unread
+    private final byte[] buffer;
+    private int blockEnd;
+    private int readPosition;
+    private boolean finished;
+
+    /**
+     * Constructs a decompressing stream, reading and checking the container header.
+     *
+     * @param in      the stream holding the compressed data
+     * @param decoder the decoder used for each block, holding the container's dictionary if it
+     *                has one
+     * @throws IOException if the header is missing or invalid, or the decoder lacks the
+     *                     container's dictionary
+     */
+    public LZ77InputStream(InputStream in, LZ77Decoder decoder) throws IOException {
+        this.in = new DataInputStream(in);
+
+        if (this.in.readInt() != BlockFormat.MAGIC) {
+            throw new IOException("Not an LZ77 container");
+        }
+        int[] sizes = BlockFormat.readHeader(this.in);
+        this.windowSize = sizes[0];
+        this.blockSize = sizes[1];
+        this.payloadDecoder = new BlockPayloadDecoder(decoder, sizes[2]);
+        this.dictionary = BlockFormat.dictionaryFor(sizes[3], decoder);
+        this.buffer = new byte[windowSize + blockSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (readPosition == blockEnd && !readBlock()) {
+            return -1;
+        }
+        return buffer[readPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (readPosition == blockEnd && !readBlock()) {
+            return -1;
+        }
+        int count = Math.min(len, blockEnd - readPosition);
+        System.arraycopy(buffer, readPosition, b, off, count);
+        readPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return blockEnd - readPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Decodes the next block after the current one, returning false at the end marker. Any
+     * block index after the end marker is left unread.
+     */
+    private boolean readBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+
+        int type = in.readUnsignedByte();
+        if (type == BlockFormat.BLOCK_END) {
+            finished = true;
+            return false;
+        }
+        if (!BlockFormat.isDataBlock(type)) {
+            throw new IOException("Unknown block type: " + type);
+        }
+
+        int length = in.readInt();
+        int payloadLength = in.readInt();
+        if (length < 0 || length > blockSize || payloadLength < 0) {
+            throw new IOException("Corrupt block header");
+        }
+        if (payload.length < payloadLength) {
+            payload = new byte[payloadLength];
+        }
+        in.readFully(payload, 0, payloadLength);
+
+        // An independent block only sees the dictionary; otherwise slide the window to the front
+        // once the block would not fit behind it
+        if ((type & BlockFormat.BLOCK_INDEPENDENT) != 0 && dictionary != null) {
+            blockEnd = dictionary.tailLength(windowSize);
+            dictionary.copyTail(blockEnd, buffer, blockEnd);
+        } else if (buffer.length - blockEnd < length) {
+            int keep = Math.min(blockEnd, windowSize);
+            System.arraycopy(buffer, blockEnd - keep, buffer, 0, keep);
+            blockEnd = keep;
+        }
+
+        payloadDecoder.decode(type, payload, 0, payloadLength, length, buffer, blockEnd);
+        readPosition = blockEnd;
+        blockEnd += length;
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+package io;
+
+import core.LZ77Encoder;
+import model.PresetDictionary;
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Output stream that compresses data with LZ77 as it is written.
+ * <p>
+ * Input is collected into fixed-size blocks; each full block is encoded and written out
+ * immediately as a container block (see {@link BlockFormat}). The encoder's sliding window is
+ * carried across block boundaries, so matches may refer back into previous blocks, and so is the
+ * state of its match finder, so each block only costs its own bytes. Memory stays fixed at two
+ * windows plus one block regardless of how much data passes through: the spare window lets the
+ * buffer fill for several blocks before it slides, which copies a window and indexes it again.
+ * Closing the stream writes the block index trailer after the end marker.
+ * <p>
+ * With a reset interval, every that many blocks one is encoded without the window before it.
+ * Such blocks are reset points where decoding can start, which {@link LZ77SeekableReader} uses
+ * for random access and {@link FileDecoder} to decode in parallel, at the cost of the matches
+ * lost at each reset. Unless another interval is given, there is a reset point every
+ * {@value #DEFAULT_RESET_INTERVAL} blocks, and tokens are written as {@link TokenCoding#PACKED}.
+ * <p>
+ * If the encoder has a {@link PresetDictionary}, its tail is placed in the window before the
+ * first block and before every reset point, and its ID is written to the header.
+ */
+public class LZ77OutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 18;
+    // At the default block size, a seek decodes at most 4 MiB and loses well under 1% of ratio
+    public static final int DEFAULT_RESET_INTERVAL = 16;
+    public static final TokenCoding DEFAULT_CODING = TokenCoding.PACKED;
+
+    private final DataOutputStream out;
+    private final LZ77Encoder encoder;
+    private final int windowSize;
+    private final int blockSize;
+    private final int resetInterval;
+    private final TokenCoding coding;
+    private final PresetDictionary dictionary;
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final SequenceBuffer sequences = new SequenceBuffer();
+    private final BitWriter payload = new BitWriter();
+    private final BlockIndex index = new BlockIndex(BlockFormat.HEADER_SIZE);
+
+    // Window followed by the block being filled: buffer[blockStart, position) is pending
+    private final byte[] buffer;
+    private int blockStart;
+    private int position;
+    // Whether the encoder's match finder still indexes the buffer up to blockStart
+    private boolean continuous;
+    // The oldest byte matches may refer to: the dictionary tail before the last reset point
+    private int historyFloor;
+    private long blockCount;
+    private boolean closed;
+
+    public LZ77OutputStream(OutputStream out, LZ77Encoder encoder) throws IOException {
+        this(out, encoder, DEFAULT_BLOCK_SIZE);
+    }
+
+    public LZ77OutputStream(OutputStream out, LZ77Encoder encoder, int blockSize) throws IOException {
+        this(out, encoder, blockSize, DEFAULT_RESET_INTERVAL);
+    }
+
+    public LZ77OutputStream(OutputStream out, LZ77Encoder encoder, int blockSize, int resetInterval)
+            throws IOException {
+        this(out, encoder, blockSize, resetInterval, DEFAULT_CODING);
+    }
+
+    /**
+     * Constructs a compressing stream and writes the container header.
+     *
+     * @param out           the stream receiving the compressed data
+     * @param encoder       the encoder used for each block
+     * @param blockSize     the number of input bytes per block
+     * @param resetInterval the number of blocks between reset points, or 0 to only start
+     *                      decoding at the first block
+     * @param coding        how the tokens of each block are serialized
+     * @throws IOException              if the header cannot be written
+     * @throws IllegalArgumentException if the window or block size is out of range
+     */
+    public LZ77OutputStream(OutputStream out, LZ77Encoder encoder, int blockSize, int resetInterval,
+                            TokenCoding coding) throws IOException {
+        BlockFormat.checkSizes(encoder.getWindowSize(), blockSize);
+        if (resetInterval < 0) {
+            throw new IllegalArgumentException("Reset interval must not be negative: " + resetInterval);
+        }
+        this.out = new DataOutputStream(out);
+        this.encoder = encoder;
+        this.windowSize = encoder.getWindowSize();
+        this.blockSize = blockSize;
+        this.resetInterval = resetInterval;
+        this.coding = coding;
+        this.dictionary = encoder.getDictionary();
+        this.buffer = new byte[2 * windowSize + blockSize];
+
+        BlockFormat.writeHeader(this.out, windowSize, blockSize, dictionary);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[position++] = (byte) b;
+        if (position - blockStart == blockSize) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int count = Math.min(len, blockSize - (position - blockStart));
+            System.arraycopy(b, off, buffer, position, count);
+            position += count;
+            off += count;
+            len -= count;
+            if (position - blockStart == blockSize) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer, copying them straight into the block being filled.
+     * With a memory-mapped buffer this avoids any intermediate copy of the input.
+     *
+     * @param src the buffer to compress, which is left at its limit
+     * @throws IOException if a block cannot be written
+     */
+    public void write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        while (src.hasRemaining()) {
+            int count = Math.min(src.remaining(), blockSize - (position - blockStart));
+            src.get(buffer, position, count);
+            position += count;
+            if (position - blockStart == blockSize) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Encodes any pending input as a (possibly short) block and flushes the underlying stream,
+     * so that everything written so far can be decoded.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (position > blockStart) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining input, the end marker and the block index, then closes the underlying
+     * stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (position > blockStart) {
+                writeBlock();
+            }
+            out.writeByte(BlockFormat.BLOCK_END);
+            index.write(out);
+            out.flush();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * Encodes buffer[blockStart, position) against the window before it, or stores it raw if that
+     * does not pay, and writes the block.
+     */
+    private void writeBlock() throws IOException {
+        int length = position - blockStart;
+        boolean independent = blockCount == 0 || (resetInterval > 0 && blockCount % resetInterval == 0);
+        if (independent) {
+            int tail = primeWindow(length);
+            historyFloor = blockStart - tail;
+        }
+        int historyStart = Math.max(historyFloor, blockStart - windowSize);
+        boolean continued = continuous && !independent;
+        int kind = BlockFormat.encodePayload(encoder, buffer, historyStart, blockStart, length, continued, tokens,
+                sequences, coding, payload);
+        BlockFormat.writeBlock(out, kind, length, independent, payload, index);
+
+        blockStart = position;
+        blockCount++;
+        // A stored block may not have reached the encoder, which then still indexes older blocks
+        continuous = continued || kind != BlockFormat.BLOCK_STORED;
+
+        // Slide the window to the front once another full block would not fit, which moves
+        // every position the match finder indexed
+        if (buffer.length - position < blockSize) {
+            int keep = Math.min(position, windowSize);
+            System.arraycopy(buffer, position - keep, buffer, 0, keep);
+            historyFloor = Math.max(0, historyFloor - (position - keep));
+            position = keep;
+            blockStart = keep;
+            continuous = false;
+        }
+    }
+
+    /**
+     * Places the dictionary tail just before the pending block, moving the block up first if
+     * there is no room in front of it.
+     *
+     * @return the length of the tail, or 0 without a dictionary
+     */
+    private int primeWindow(int length) {
+        if (dictionary == null) {
+            return 0;
+        }
+        int tail = dictionary.tailLength(windowSize);
+        if (blockStart < tail) {
+            System.arraycopy(buffer, blockStart, buffer, tail, length);
+            blockStart = tail;
+            position = tail + length;
+        }
+        dictionary.copyTail(tail, buffer, blockStart);
+        return tail;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io;
+
+import core.LZ77Decoder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random-access reader for block containers that carry a block index.
+ * <p>
+ * A read locates the blocks holding the requested range through the index and decodes them
+ * starting from the closest reset point (an independent block) before the first one, so the work
+ * per read is bounded by the reset interval the file was written with rather than by the offset.
+ * The last decoded block is kept, so consecutive reads moving forward continue where the previous
+ * one stopped instead of decoding again from the reset point.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class LZ77SeekableReader implements Closeable {
+    private final FileChannel channel;
+    private final BlockIndex index;
+    private final IndexedBlockDecoder blocks;
+
+    // The last decoded block and its position in the decoder's buffer, or -1 if none
+    private int currentBlock = -1;
+    private int currentStart;
+
+    /**
+     * Opens a container for random access, reading its header and block index.
+     *
+     * @param file    the compressed file
+     * @param decoder the decoder used for each block, holding the container's dictionary if it
+     *                has one
+     * @throws IOException if the file is not a container, has no block index or needs a
+     *                     dictionary the decoder lacks
+     */
+    public LZ77SeekableReader(Path file, LZ77Decoder decoder) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            int[] sizes = BlockFormat.readHeader(channel);
+            this.index = sizes[2] >= 2 ? BlockIndex.read(channel, BlockFormat.headerSize(sizes[2])) : null;
+            if (index == null) {
+                throw new IOException("Container has no block index");
+            }
+            this.blocks = new IndexedBlockDecoder(channel, index, decoder, sizes[0], sizes[1], sizes[2],
+                    BlockFormat.dictionaryFor(sizes[3], decoder));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the uncompressed size of the container.
+     */
+    public long length() {
+        return index.getRawSize();
+    }
+
+    /**
+     * Reads up to {@code len} bytes of uncompressed data starting at {@code offset}. Fewer bytes
+     * are read only when the range extends past the end of the data.
+     *
+     * @param offset the offset in the uncompressed data
+     * @param dst    the destination array
+     * @param off    the start offset in {@code dst}
+     * @param len    the maximum number of bytes to read
+     * @return the number of bytes read, or -1 if {@code offset} is at or past the end
+     * @throws IOException if a block cannot be read or is corrupt
+     */
+    public int read(long offset, byte[] dst, int off, int len) throws IOException {
+        if (offset < 0 || off < 0 || len < 0 || len > dst.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        int block = index.findBlock(offset);
+        if (block < 0) {
+            return -1;
+        }
+
+        int total = 0;
+        while (total < len && block < index.size()) {
+            int start = decodeBlock(block);
+            int skip = (int) (offset + total - index.getRawOffset(block));
+            int count = Math.min(len - total, index.getRawLength(block) - skip);
+            System.arraycopy(blocks.getBuffer(), start + skip, dst, off + total, count);
+            total += count;
+            block++;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Makes a block the current one, decoding from the closest usable starting point.
+     *
+     * @return the position of the block's first byte in the decoder's buffer
+     */
+    private int decodeBlock(int block) throws IOException {
+        if (block == currentBlock) {
+            return currentStart;
+        }
+
+        int resetPoint = block;
+        while (!index.isIndependent(resetPoint)) {
+            resetPoint--;
+        }
+        // Continue from the current block when it lies between the reset point and the target
+        if (currentBlock < resetPoint || currentBlock > block) {
+            blocks.seek(resetPoint);
+        }
+
+        currentBlock = -1;
+        while (blocks.getNextBlock() <= block) {
+            currentStart = blocks.decodeNext();
+            currentBlock = blocks.getNextBlock() - 1;
+        }
+        return currentStart;
+    }
+}
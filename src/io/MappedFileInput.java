@@ -0,0 +1,75 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through read-only memory mappings, one region at a time.
+ * <p>
+ * A single mapping is limited to 2 GB, so larger files are mapped in consecutive regions. Data is
+ * copied straight from the page cache into the caller's buffers, with no intermediate stream
+ * buffers. Regions are unmapped by the garbage collector once no longer referenced.
+ */
+final class MappedFileInput implements Closeable {
+    static final long REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private long position;
+    private MappedByteBuffer region;
+
+    MappedFileInput(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Maps the next region of the file.
+     *
+     * @return the region, positioned at its start, or null at the end of the file
+     */
+    MappedByteBuffer nextRegion() throws IOException {
+        if (position >= size) {
+            region = null;
+            return null;
+        }
+        long length = Math.min(REGION_SIZE, size - position);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return region;
+    }
+
+    /**
+     * Copies up to {@code len} bytes into an array, crossing region boundaries as needed.
+     *
+     * @return the number of bytes copied, less than {@code len} only at the end of the file
+     */
+    int read(byte[] dst, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            if (region == null || !region.hasRemaining()) {
+                if (nextRegion() == null) {
+                    break;
+                }
+            }
+            int count = Math.min(len - total, region.remaining());
+            region.get(dst, off + total, count);
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,164 @@
+package io;
+
+import model.SequenceBuffer;
+import model.TokenBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Byte-oriented payload of literal-run sequences, in the style of LZ4 (see {@link SequenceBuffer}).
+ * <p>
+ * Each sequence is stored as
+ * <pre>
+ *   token (8 bits): literal length (high 4 bits) | match length (low 4 bits)
+ *   [literal length - 15, LEB128]   if the literal length field is 15
+ *   literals
+ *   distance (LEB128)               if the match length field is not 0
+ *   [match length - 15, LEB128]     if the match length field is 15
+ * </pre>
+ * A final sequence with a match length field of 0 holds the trailing literals and ends the
+ * payload. Literals are copied through unchanged, so an incompressible block grows by a few bytes
+ * at most, and a run of literals decodes with a single copy.
+ */
+final class SequenceFormat {
+    private static final int FIELD_MAX = 15;
+
+    private SequenceFormat() {
+    }
+
+    /**
+     * Writes tokens as sequences, converting them in a caller-supplied buffer which is cleared
+     * first, so the buffer can be reused from block to block.
+     */
+    static void writeTokens(TokenBuffer tokens, SequenceBuffer sequences, BitWriter out) {
+        sequences.clear();
+        sequences.addTokens(tokens);
+        writeSequences(sequences, out);
+    }
+
+    /**
+     * Writes sequences. The writer must be at a byte boundary.
+     */
+    static void writeSequences(SequenceBuffer sequences, BitWriter out) {
+        byte[] literals = sequences.getLiterals();
+        int literal = 0;
+        for (int i = 0; i < sequences.size(); i++) {
+            int literalLength = sequences.getLiteralLength(i);
+            int matchLength = sequences.getMatchLength(i);
+            writeToken(out, literalLength, matchLength);
+            out.writeBytes(literals, literal, literalLength);
+            literal += literalLength;
+            BlockFormat.writeLeb128(out, sequences.getDistance(i));
+            if (matchLength >= FIELD_MAX) {
+                BlockFormat.writeLeb128(out, matchLength - FIELD_MAX);
+            }
+        }
+
+        int trailing = sequences.getTrailingLiteralLength();
+        writeToken(out, trailing, 0);
+        out.writeBytes(literals, literal, trailing);
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeSequences} writes for the given sequences.
+     */
+    static long payloadSize(SequenceBuffer sequences) {
+        long size = 0;
+        for (int i = 0; i < sequences.size(); i++) {
+            int literalLength = sequences.getLiteralLength(i);
+            int matchLength = sequences.getMatchLength(i);
+            size += tokenSize(literalLength) + literalLength + leb128Size(sequences.getDistance(i));
+            if (matchLength >= FIELD_MAX) {
+                size += leb128Size(matchLength - FIELD_MAX);
+            }
+        }
+        int trailing = sequences.getTrailingLiteralLength();
+        return size + tokenSize(trailing) + trailing;
+    }
+
+    /**
+     * Reads sequences written by {@link #writeSequences} into a buffer, which is cleared first.
+     *
+     * @throws IOException if the payload is truncated or malformed
+     */
+    static void readSequences(byte[] payload, int offset, int payloadLength, SequenceBuffer sequences)
+            throws IOException {
+        sequences.clear();
+        ByteBuffer in = ByteBuffer.wrap(payload, offset, payloadLength);
+        while (true) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Truncated block payload");
+            }
+            int token = in.get() & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == FIELD_MAX) {
+                literalLength = addLength(literalLength, readLeb128(in));
+            }
+            if (literalLength > in.remaining()) {
+                throw new IOException("Truncated block payload");
+            }
+            sequences.addLiterals(payload, in.position(), literalLength);
+            in.position(in.position() + literalLength);
+
+            int matchLength = token & FIELD_MAX;
+            if (matchLength == 0) {
+                break;
+            }
+            int distance = readLeb128(in);
+            if (matchLength == FIELD_MAX) {
+                matchLength = addLength(matchLength, readLeb128(in));
+            }
+            if (distance == 0 || matchLength > TokenBuffer.MAX_LENGTH) {
+                throw new IOException("Corrupt match token");
+            }
+            sequences.addMatch(distance, matchLength);
+        }
+        if (in.hasRemaining()) {
+            throw new IOException("Trailing data after the last sequence");
+        }
+    }
+
+    private static void writeToken(BitWriter out, int literalLength, int matchLength) {
+        out.writeByte(Math.min(literalLength, FIELD_MAX) << 4 | Math.min(matchLength, FIELD_MAX));
+        if (literalLength >= FIELD_MAX) {
+            BlockFormat.writeLeb128(out, literalLength - FIELD_MAX);
+        }
+    }
+
+    private static int tokenSize(int literalLength) {
+        return literalLength >= FIELD_MAX ? 1 + leb128Size(literalLength - FIELD_MAX) : 1;
+    }
+
+    private static int leb128Size(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    private static int addLength(int field, int extension) throws IOException {
+        if (extension > Integer.MAX_VALUE - field) {
+            throw new IOException("Corrupt sequence length");
+        }
+        return field + extension;
+    }
+
+    private static int readLeb128(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Truncated block payload");
+            }
+            int group = in.get() & 0xFF;
+            if (shift == 28) {
+                // The fifth group holds the top three bits and must end the value
+                if (group > 0x07) {
+                    throw new IOException("Corrupt variable-length value");
+                }
+                return value | group << 28;
+            }
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
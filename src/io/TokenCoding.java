@@ -0,0 +1,33 @@
+package io;
+
+/**
+ * How the tokens of each container block are serialized.
+ */
+public enum TokenCoding {
+    /**
+     * Flag bits, raw bytes and variable-length integers. Fastest to write and read. Blocks that
+     * come out smaller as {@link #SEQUENCES}, such as long literal runs in poorly compressible
+     * data, are written that way instead. The default.
+     */
+    PACKED,
+
+    /**
+     * Canonical Huffman codes built per block for literals and lengths, and for distances.
+     * Smaller output at the cost of a frequency pass while encoding.
+     */
+    HUFFMAN,
+
+    /**
+     * Table-based asymmetric numeral system (tANS/FSE) coding with separate streams for
+     * literals, lengths and distances. Closer to the entropy than Huffman codes, with similar
+     * decoding cost.
+     */
+    FSE,
+
+    /**
+     * LZ4-style sequences: a run of raw literal bytes followed by a match, with byte-aligned
+     * lengths and distances. Incompressible data costs a few bytes per block, and literal runs
+     * decode with a single copy. Fastest to decode.
+     */
+    SEQUENCES
+}
@@ -0,0 +1,45 @@
+package io;
+
+/**
+ * Maps token lengths and distances to the symbols used by the entropy-coded block formats.
+ * <p>
+ * As in deflate, a value is split into a bucket code and extra bits: values 0-3 have codes of
+ * their own, and every larger power-of-two range is split into two codes, each followed by
+ * enough extra bits to select a value within it. Any non-negative int fits in
+ * {@link #BUCKET_COUNT} codes with at most 29 extra bits.
+ */
+final class TokenSymbols {
+    static final int LITERAL_COUNT = 256;
+    static final int BUCKET_COUNT = 62;
+
+    private TokenSymbols() {
+    }
+
+    /**
+     * Returns the bucket code of a non-negative value.
+     */
+    static int bucket(int value) {
+        if (value < 4) {
+            return value;
+        }
+        int log = 31 - Integer.numberOfLeadingZeros(value);
+        return 2 * log + ((value >>> (log - 1)) & 1);
+    }
+
+    /**
+     * Returns the number of extra bits following a bucket code.
+     */
+    static int extraBits(int code) {
+        return code < 4 ? 0 : (code >>> 1) - 1;
+    }
+
+    /**
+     * Returns the smallest value in a bucket.
+     */
+    static int base(int code) {
+        if (code < 4) {
+            return code;
+        }
+        return (2 | (code & 1)) << ((code >>> 1) - 1);
+    }
+}
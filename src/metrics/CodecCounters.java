@@ -0,0 +1,227 @@
+package metrics;
+
+import core.CodecListener;
+import model.TokenBuffer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CodecListener} that counts what an encoder and decoder do: bytes and blocks processed,
+ * match-finder probes and the lengths of the chains walked, and the distribution of match
+ * lengths. Counting is thread-safe, so one instance can serve encoders compressing blocks in
+ * parallel, and the counters can be published over JMX with {@link #register}.
+ * <p>
+ * The codecs only report events when the JVM runs with {@code -Dlz77.instrumentation=true}; without
+ * it these counters stay at zero (see {@link CodecListener#ENABLED}).
+ * <p>
+ * Pass an instance to {@link core.LZ77Encoder} or {@link core.LZ77Decoder} when constructing
+ * them, or to {@link core.CompressionLevel#newEncoder(model.PresetDictionary, CodecListener)}.
+ */
+public final class CodecCounters implements CodecListener, CodecCountersMBean {
+    // Enough power-of-two buckets for any int
+    private static final int BUCKET_COUNT = 33;
+
+    private final LongAdder bytesEncoded = new LongAdder();
+    private final LongAdder blocksEncoded = new LongAdder();
+    private final LongAdder bytesStored = new LongAdder();
+    private final LongAdder blocksStored = new LongAdder();
+    private final LongAdder bytesDecoded = new LongAdder();
+    private final LongAdder blocksDecoded = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder matchedBytes = new LongAdder();
+    private final LongAdder[] matchLengths = newBuckets();
+    private final LongAdder[] chainLengths = newBuckets();
+
+    @Override
+    public void onSearch(int probeCount) {
+        searches.increment();
+        probes.add(probeCount);
+        chainLengths[bucketIndex(probeCount)].increment();
+    }
+
+    @Override
+    public void onBlockEncoded(TokenBuffer tokens, int length) {
+        // Tally the block locally so the shared counters are touched once per bucket, not per token
+        long[] lengthCounts = new long[BUCKET_COUNT];
+        long blockMatches = 0;
+        long blockMatchedBytes = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int matchLength = tokens.getLength(i);
+            if (matchLength > 0) {
+                lengthCounts[bucketIndex(matchLength)]++;
+                blockMatches++;
+                blockMatchedBytes += matchLength;
+            }
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (lengthCounts[i] != 0) {
+                matchLengths[i].add(lengthCounts[i]);
+            }
+        }
+        matches.add(blockMatches);
+        matchedBytes.add(blockMatchedBytes);
+        bytesEncoded.add(length);
+        blocksEncoded.increment();
+    }
+
+    @Override
+    public void onBlockStored(int length) {
+        bytesStored.add(length);
+        blocksStored.increment();
+        bytesEncoded.add(length);
+        blocksEncoded.increment();
+    }
+
+    @Override
+    public void onBlockDecoded(int length) {
+        bytesDecoded.add(length);
+        blocksDecoded.increment();
+    }
+
+    /**
+     * Registers these counters with the platform MBean server as
+     * {@code lz77:type=CodecCounters,name=<name>}.
+     *
+     * @param name a name telling this codec apart from others in the same JVM
+     * @return the name the counters were registered under, for unregistering them
+     * @throws IllegalStateException if the name is taken or registration fails
+     */
+    public ObjectName register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName("lz77:type=CodecCounters,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register codec counters " + name, e);
+        }
+    }
+
+    @Override
+    public long getBytesEncoded() {
+        return bytesEncoded.sum();
+    }
+
+    @Override
+    public long getBlocksEncoded() {
+        return blocksEncoded.sum();
+    }
+
+    @Override
+    public long getBytesStored() {
+        return bytesStored.sum();
+    }
+
+    @Override
+    public long getBlocksStored() {
+        return blocksStored.sum();
+    }
+
+    @Override
+    public long getBytesDecoded() {
+        return bytesDecoded.sum();
+    }
+
+    @Override
+    public long getBlocksDecoded() {
+        return blocksDecoded.sum();
+    }
+
+    @Override
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getProbeCount() {
+        return probes.sum();
+    }
+
+    @Override
+    public double getAverageChainLength() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double) probes.sum() / count;
+    }
+
+    @Override
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    @Override
+    public long getMatchedBytes() {
+        return matchedBytes.sum();
+    }
+
+    @Override
+    public long getLiteralCount() {
+        return bytesEncoded.sum() - matchedBytes.sum();
+    }
+
+    @Override
+    public double getAverageMatchLength() {
+        long count = matches.sum();
+        return count == 0 ? 0 : (double) matchedBytes.sum() / count;
+    }
+
+    @Override
+    public long[] getMatchLengthHistogram() {
+        return sums(matchLengths);
+    }
+
+    @Override
+    public long[] getChainLengthHistogram() {
+        return sums(chainLengths);
+    }
+
+    @Override
+    public boolean isInstrumentationEnabled() {
+        return CodecListener.ENABLED;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{bytesEncoded, blocksEncoded, bytesStored, blocksStored, bytesDecoded,
+                blocksDecoded, searches, probes, matches, matchedBytes}) {
+            adder.reset();
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            matchLengths[i].reset();
+            chainLengths[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes encoded in %d blocks, %d decoded in %d; %d matches averaging %.2f bytes;"
+                        + " %.2f probes per search",
+                getBytesEncoded(), getBlocksEncoded(), getBytesDecoded(), getBlocksDecoded(), getMatchCount(),
+                getAverageMatchLength(), getAverageChainLength());
+    }
+
+    private static int bucketIndex(int value) {
+        return 32 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static LongAdder[] newBuckets() {
+        LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+        return buckets;
+    }
+
+    private static long[] sums(LongAdder[] buckets) {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,72 @@
+package metrics;
+
+/**
+ * The management interface of {@link CodecCounters}, under which its counters appear as JMX
+ * attributes in tools such as JConsole and VisualVM.
+ */
+public interface CodecCountersMBean {
+    long getBytesEncoded();
+
+    long getBlocksEncoded();
+
+    /**
+     * Returns the number of bytes stored raw because they looked incompressible, which are also
+     * counted as encoded.
+     */
+    long getBytesStored();
+
+    long getBlocksStored();
+
+    long getBytesDecoded();
+
+    long getBlocksDecoded();
+
+    /**
+     * Returns the number of match-finder searches.
+     */
+    long getSearchCount();
+
+    /**
+     * Returns the number of candidate positions compared over all searches.
+     */
+    long getProbeCount();
+
+    /**
+     * Returns the average number of candidates compared per search.
+     */
+    double getAverageChainLength();
+
+    long getMatchCount();
+
+    /**
+     * Returns the number of input bytes copied by matches.
+     */
+    long getMatchedBytes();
+
+    long getLiteralCount();
+
+    double getAverageMatchLength();
+
+    /**
+     * Returns the number of matches by length, in power-of-two buckets: bucket 0 counts length 0
+     * and bucket {@code i} lengths from 2^(i-1) to 2^i - 1.
+     */
+    long[] getMatchLengthHistogram();
+
+    /**
+     * Returns the number of searches by candidates compared, in the buckets of
+     * {@link #getMatchLengthHistogram()}.
+     */
+    long[] getChainLengthHistogram();
+
+    /**
+     * Returns whether the codecs report events at all, that is whether the JVM runs with
+     * {@code -Dlz77.instrumentation=true}.
+     */
+    boolean isInstrumentationEnabled();
+
+    /**
+     * Sets every counter back to zero.
+     */
+    void reset();
+}
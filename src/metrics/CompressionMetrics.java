@@ -1,31 +1,131 @@
 package metrics;
 
+import core.LZ77Decoder;
+import core.LZ77Encoder;
+import model.TokenBuffer;
+
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * Calculates and formats compression statistics.
  */
 public class CompressionMetrics {
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
 
     public Map<String, Double> calculateMetrics(String originalFilePath, String compressedFilePath) throws IOException {
-        Map<String, Double> metrics = new HashMap<>();
         long originalSize = Files.size(Paths.get(originalFilePath));
         long compressedSize = Files.size(Paths.get(compressedFilePath));
+        return calculateMetrics(originalSize, compressedSize);
+    }
+
+    /**
+     * Calculates the metrics from sizes, such as the totals over a set of files.
+     *
+     * @param originalSize   the number of uncompressed bytes
+     * @param compressedSize the number of compressed bytes
+     */
+    public Map<String, Double> calculateMetrics(long originalSize, long compressedSize) {
+        return new CompressionStatistics(originalSize, compressedSize).toMetricsMap();
+    }
+
+    /**
+     * Calculates the full statistics of a file and its compressed form. The sizes come from the
+     * files; the throughput, latency, token and allocation figures from compressing the original
+     * again in memory, block by block, with the given encoder (see
+     * {@link #calculateStatistics(byte[], long, LZ77Encoder, int)}).
+     *
+     * @param originalFilePath   path to the uncompressed file
+     * @param compressedFilePath path to the compressed file
+     * @param encoder            the encoder the file was compressed with
+     * @param blockSize          the number of input bytes per block
+     */
+    public CompressionStatistics calculateStatistics(String originalFilePath, String compressedFilePath,
+                                                     LZ77Encoder encoder, int blockSize) throws IOException {
+        byte[] input = Files.readAllBytes(Paths.get(originalFilePath));
+        return calculateStatistics(input, Files.size(Paths.get(compressedFilePath)), encoder, blockSize);
+    }
+
+    /**
+     * Encodes and decodes an input in memory, block by block as the streaming container does,
+     * timing each block and counting its tokens. Only the codec is measured: no file I/O and no
+     * entropy coding. The dictionary of the encoder, if any, is not used.
+     * <p>
+     * The first blocks include JIT compilation, so warm the encoder up on a similar input first
+     * for steady-state figures. Allocation is measured for the calling thread, via
+     * {@code com.sun.management.ThreadMXBean}, where the JVM supports it.
+     *
+     * @param input          the data to compress
+     * @param compressedSize the size of its compressed container, for the ratio
+     * @param encoder        the encoder to measure
+     * @param blockSize      the number of input bytes per block
+     * @throws IllegalStateException if the decoded data does not match the input
+     */
+    public CompressionStatistics calculateStatistics(byte[] input, long compressedSize, LZ77Encoder encoder,
+                                                     int blockSize) {
+        CompressionStatistics statistics = new CompressionStatistics(input.length, compressedSize);
+        LZ77Decoder decoder = new LZ77Decoder();
+        TokenBuffer tokens = new TokenBuffer();
+        byte[] output = new byte[input.length];
+        long encodeAllocated = 0;
+        long decodeAllocated = 0;
+
+        for (int offset = 0; offset < input.length; offset += blockSize) {
+            int length = Math.min(blockSize, input.length - offset);
 
-        double compressionRatio = (double) originalSize / compressedSize;
-        double avgCodeLength = (compressedSize * 8.0) / originalSize;
+            long allocatedBefore = allocatedBytes();
+            long startTime = System.nanoTime();
+            if (offset == 0) {
+                encoder.encodeBlock(input, 0, 0, length, tokens);
+            } else {
+                encoder.encodeNextBlock(input, offset, length, tokens);
+            }
+            long encodingTime = System.nanoTime() - startTime;
+            long allocatedEncoding = allocatedBytes();
 
-        metrics.put("originalSize", (double) originalSize);
-        metrics.put("compressedSize", (double) compressedSize);
-        metrics.put("compressionRatio", compressionRatio);
-        metrics.put("averageCodeLength", avgCodeLength);
+            startTime = System.nanoTime();
+            decoder.decodeBlock(tokens, output, offset);
+            long decodingTime = System.nanoTime() - startTime;
+            long allocatedDecoding = allocatedBytes();
 
-        return metrics;
+            statistics.recordEncodedBlock(encodingTime);
+            statistics.recordDecodedBlock(decodingTime);
+            encodeAllocated += allocatedEncoding - allocatedBefore;
+            decodeAllocated += allocatedDecoding - allocatedEncoding;
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.getLength(i) > 0) {
+                    statistics.recordMatch(tokens.getDistance(i), tokens.getLength(i));
+                }
+            }
+        }
+
+        if (!Arrays.equals(input, output)) {
+            throw new IllegalStateException("Decoded data does not match the input");
+        }
+        if (allocatedBytes() < 0) {
+            statistics.recordAllocation(-1, -1);
+        } else {
+            statistics.recordAllocation(encodeAllocated, decodeAllocated);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the calling thread, or -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
     }
 
     public String formatResults(Map<String, Double> metrics, double encodingTime, double decodingTime) {
@@ -41,6 +141,98 @@ public class CompressionMetrics {
         return sb.toString();
     }
 
+    /**
+     * Formats the average code length of one input compressed with several token codings,
+     * relative to a baseline coding.
+     *
+     * @param metricsByCoding metrics from {@link #calculateMetrics}, keyed by coding name in display order
+     * @param baseline        the name of the coding the others are compared with
+     */
+    public String formatCodingComparison(Map<String, Map<String, Double>> metricsByCoding, String baseline) {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Double> baselineMetrics = metricsByCoding.get(baseline);
+
+        for (Map.Entry<String, Map<String, Double>> entry : metricsByCoding.entrySet()) {
+            double avgCodeLength = entry.getValue().get("averageCodeLength");
+            sb.append(entry.getKey()).append(": ").append(String.format("%.4f", avgCodeLength)).append(" bits/symbol");
+            if (baselineMetrics != null && !entry.getKey().equals(baseline)) {
+                double change = (avgCodeLength / baselineMetrics.get("averageCodeLength") - 1) * 100;
+                sb.append(String.format(" (%+.2f%% vs %s)", change, baseline));
+            }
+            sb.append("\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Formats the full statistics of one input.
+     */
+    public String formatStatistics(CompressionStatistics statistics) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(formatResults(statistics.toMetricsMap(),
+                statistics.getEncodeLatency().getTotal() / 1e6, statistics.getDecodeLatency().getTotal() / 1e6));
+        sb.append("Encoding speed: ").append(String.format("%.2f", statistics.getEncodeMegabytesPerSecond())).append(" MB/s\n");
+        sb.append("Decoding speed: ").append(String.format("%.2f", statistics.getDecodeMegabytesPerSecond())).append(" MB/s\n");
+        sb.append(formatLatency("Encode block latency", statistics.getEncodeLatency()));
+        sb.append(formatLatency("Decode block latency", statistics.getDecodeLatency()));
+        sb.append("Literals: ").append(statistics.getLiteralCount()).append(" bytes, matches: ")
+                .append(statistics.getMatchCount()).append("\n");
+        sb.append("Average match: ").append(String.format("%.2f", statistics.getAverageMatchLength()))
+                .append(" bytes at distance ").append(String.format("%.1f", statistics.getAverageMatchDistance())).append("\n");
+        if (statistics.getEncodeAllocatedBytesPerMegabyte() >= 0) {
+            sb.append("Allocated: ").append(String.format("%.0f", statistics.getEncodeAllocatedBytesPerMegabyte()))
+                    .append(" bytes/MB encoding, ").append(String.format("%.0f", statistics.getDecodeAllocatedBytesPerMegabyte()))
+                    .append(" bytes/MB decoding\n");
+        }
+
+        return sb.toString();
+    }
+
+    private static String formatLatency(String label, LatencyHistogram histogram) {
+        return String.format("%s: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms (%d blocks)\n", label,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMax() / 1e6,
+                histogram.getCount());
+    }
+
+    /**
+     * Returns the CSV header matching {@link #toCsvLine(String, CompressionStatistics)}.
+     */
+    public String statisticsCsvHeader() {
+        return "Filename,Original Size (bytes),Compressed Size (bytes),Compression Ratio,"
+                + "Encode (MB/s),Decode (MB/s),Encode p50 (ms),Encode p99 (ms),Encode p99.9 (ms),"
+                + "Decode p50 (ms),Decode p99 (ms),Decode p99.9 (ms),Literals,Matches,Avg Match Length,"
+                + "Avg Match Distance,Encode Allocated (bytes/MB),Decode Allocated (bytes/MB)";
+    }
+
+    public String toCsvLine(String fileName, CompressionStatistics statistics) {
+        LatencyHistogram encode = statistics.getEncodeLatency();
+        LatencyHistogram decode = statistics.getDecodeLatency();
+        return String.format("%s,%d,%d,%.4f,%.2f,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%.2f,%.1f,%.0f,%.0f",
+                fileName,
+                statistics.getOriginalSize(),
+                statistics.getCompressedSize(),
+                statistics.getCompressionRatio(),
+                statistics.getEncodeMegabytesPerSecond(),
+                statistics.getDecodeMegabytesPerSecond(),
+                encode.getValueAtPercentile(50) / 1e6,
+                encode.getValueAtPercentile(99) / 1e6,
+                encode.getValueAtPercentile(99.9) / 1e6,
+                decode.getValueAtPercentile(50) / 1e6,
+                decode.getValueAtPercentile(99) / 1e6,
+                decode.getValueAtPercentile(99.9) / 1e6,
+                statistics.getLiteralCount(),
+                statistics.getMatchCount(),
+                statistics.getAverageMatchLength(),
+                statistics.getAverageMatchDistance(),
+                statistics.getEncodeAllocatedBytesPerMegabyte(),
+                statistics.getDecodeAllocatedBytesPerMegabyte());
+    }
+
     public String toCsvLine(String fileName, Map<String, Double> metrics, double encodingTime, double decodingTime) {
         return String.format("%s,%d,%d,%.4f,%.4f,%.2f,%.2f",
                 fileName,
@@ -0,0 +1,165 @@
+package metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed compression statistics for one input: sizes and ratio, encode and decode throughput,
+ * per-block latency distributions, the make-up of the token stream and the memory allocated
+ * along the way. Filled in by {@link CompressionMetrics#calculateStatistics}.
+ * <p>
+ * Throughputs are in MB/s of uncompressed data, with 1 MB = 10^6 bytes, and latencies in
+ * nanoseconds. Allocation figures are -1 when the JVM cannot measure per-thread allocation.
+ * Figures that would divide by an empty input or output are 0, so an empty file still gives
+ * finite values.
+ */
+public final class CompressionStatistics {
+    private static final double BYTES_PER_MB = 1e6;
+
+    private final long originalSize;
+    private final long compressedSize;
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    private long matchCount;
+    private long matchedBytes;
+    private long distanceTotal;
+    private long encodeAllocatedBytes;
+    private long decodeAllocatedBytes;
+
+    /**
+     * Constructs empty statistics for an input of the given sizes.
+     *
+     * @param originalSize   the number of uncompressed bytes
+     * @param compressedSize the number of compressed bytes, container framing included
+     */
+    public CompressionStatistics(long originalSize, long compressedSize) {
+        this.originalSize = originalSize;
+        this.compressedSize = compressedSize;
+    }
+
+    /**
+     * Records the time taken to encode one block.
+     */
+    public void recordEncodedBlock(long nanos) {
+        encodeLatency.record(nanos);
+    }
+
+    /**
+     * Records the time taken to decode one block.
+     */
+    public void recordDecodedBlock(long nanos) {
+        decodeLatency.record(nanos);
+    }
+
+    /**
+     * Records one match of the token stream.
+     *
+     * @param distance how far back the match starts
+     * @param length   the number of bytes it copies
+     */
+    public void recordMatch(int distance, int length) {
+        matchCount++;
+        matchedBytes += length;
+        distanceTotal += distance;
+    }
+
+    /**
+     * Records the bytes allocated while encoding and decoding, or -1 if unknown.
+     */
+    public void recordAllocation(long encodeBytes, long decodeBytes) {
+        this.encodeAllocatedBytes = encodeBytes;
+        this.decodeAllocatedBytes = decodeBytes;
+    }
+
+    public long getOriginalSize() {
+        return originalSize;
+    }
+
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    public double getCompressionRatio() {
+        return compressedSize == 0 ? 0 : (double) originalSize / compressedSize;
+    }
+
+    /**
+     * Returns the average number of compressed bits per input byte.
+     */
+    public double getAverageCodeLength() {
+        return originalSize == 0 ? 0 : compressedSize * 8.0 / originalSize;
+    }
+
+    public double getEncodeMegabytesPerSecond() {
+        return megabytesPerSecond(encodeLatency.getTotal());
+    }
+
+    public double getDecodeMegabytesPerSecond() {
+        return megabytesPerSecond(decodeLatency.getTotal());
+    }
+
+    public LatencyHistogram getEncodeLatency() {
+        return encodeLatency;
+    }
+
+    public LatencyHistogram getDecodeLatency() {
+        return decodeLatency;
+    }
+
+    /**
+     * Returns the number of input bytes emitted as literals rather than copied by a match.
+     */
+    public long getLiteralCount() {
+        return originalSize - matchedBytes;
+    }
+
+    public long getMatchCount() {
+        return matchCount;
+    }
+
+    public double getAverageMatchLength() {
+        return matchCount == 0 ? 0 : (double) matchedBytes / matchCount;
+    }
+
+    public double getAverageMatchDistance() {
+        return matchCount == 0 ? 0 : (double) distanceTotal / matchCount;
+    }
+
+    /**
+     * Returns the bytes allocated while encoding per MB of input, or -1 if unknown.
+     */
+    public double getEncodeAllocatedBytesPerMegabyte() {
+        return allocatedPerMegabyte(encodeAllocatedBytes);
+    }
+
+    /**
+     * Returns the bytes allocated while decoding per MB of output, or -1 if unknown.
+     */
+    public double getDecodeAllocatedBytesPerMegabyte() {
+        return allocatedPerMegabyte(decodeAllocatedBytes);
+    }
+
+    /**
+     * Returns the size metrics in the form of {@link CompressionMetrics#calculateMetrics}, for the
+     * formatting methods that take it.
+     */
+    public Map<String, Double> toMetricsMap() {
+        Map<String, Double> metrics = new HashMap<>();
+        metrics.put("originalSize", (double) originalSize);
+        metrics.put("compressedSize", (double) compressedSize);
+        metrics.put("compressionRatio", getCompressionRatio());
+        metrics.put("averageCodeLength", getAverageCodeLength());
+        return metrics;
+    }
+
+    private double megabytesPerSecond(long nanos) {
+        return nanos == 0 || originalSize == 0 ? 0 : originalSize / BYTES_PER_MB / (nanos / 1e9);
+    }
+
+    private double allocatedPerMegabyte(long bytes) {
+        if (bytes < 0) {
+            return -1;
+        }
+        return originalSize == 0 ? 0 : bytes / (originalSize / BYTES_PER_MB);
+    }
+}
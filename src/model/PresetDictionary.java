@@ -0,0 +1,102 @@
+package model;
+
+import java.util.zip.CRC32;
+
+/**
+ * Bytes known to both the encoder and the decoder before any input, such as samples of typical
+ * records. Priming the window with them lets matches in a short input refer back into the
+ * dictionary, which gives small messages ratios they could never reach on their own.
+ * <p>
+ * A dictionary carries a non-zero ID, recorded in the container header, so a decoder can tell
+ * whether it holds the dictionary a container was written with. By default the ID is derived from
+ * the content, so the same bytes always get the same ID.
+ */
+public final class PresetDictionary {
+    private final byte[] content;
+    private final int id;
+
+    /**
+     * Constructs a dictionary whose ID is a checksum of its content.
+     *
+     * @param content the dictionary bytes
+     */
+    public PresetDictionary(byte[] content) {
+        this(content, checksum(content));
+    }
+
+    /**
+     * Constructs a dictionary with an explicit ID.
+     *
+     * @param content the dictionary bytes
+     * @param id      the ID recorded in containers written with the dictionary; must not be 0
+     */
+    public PresetDictionary(byte[] content, int id) {
+        if (content.length == 0) {
+            throw new IllegalArgumentException("Dictionary must not be empty");
+        }
+        if (id == 0) {
+            throw new IllegalArgumentException("Dictionary ID must not be 0");
+        }
+        this.content = content.clone();
+        this.id = id;
+    }
+
+    private static int checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        int value = (int) crc.getValue();
+        return value != 0 ? value : 1;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the number of bytes in the dictionary.
+     */
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * Returns the number of trailing dictionary bytes a window of the given size can reach.
+     *
+     * @param windowSize the maximum distance of a back-reference
+     * @return the length of the dictionary tail that primes the window
+     */
+    public int tailLength(int windowSize) {
+        return Math.min(content.length, windowSize);
+    }
+
+    /**
+     * Copies dictionary bytes into an array.
+     *
+     * @param from   the index of the first dictionary byte to copy
+     * @param dest   the destination array
+     * @param offset the index in {@code dest} of the first copied byte
+     * @param length the number of bytes to copy
+     */
+    public void copyTo(int from, byte[] dest, int offset, int length) {
+        System.arraycopy(content, from, dest, offset, length);
+    }
+
+    /**
+     * Copies the last {@code length} dictionary bytes into an array, ending just before
+     * {@code end}.
+     *
+     * @param length the number of trailing bytes to copy
+     * @param dest   the destination array
+     * @param end    the index in {@code dest} after the last copied byte
+     */
+    public void copyTail(int length, byte[] dest, int end) {
+        System.arraycopy(content, content.length - length, dest, end - length, length);
+    }
+
+    /**
+     * Returns a copy of the dictionary bytes.
+     */
+    public byte[] getContent() {
+        return content.clone();
+    }
+}
@@ -0,0 +1,173 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A growable, reusable list of LZ77 sequences, in the style of LZ4: each sequence is a run of
+ * literal bytes followed by a match.
+ * <p>
+ * Literal bytes of all sequences are stored back to back in one array, so a run of any length
+ * decodes with a single copy instead of one token per byte. Literals added after the last match
+ * form a trailing run with no match. A {@link TokenBuffer} converts losslessly: its literal tokens
+ * extend the current run, and the next byte of a match token starts the run after that match.
+ */
+public class SequenceBuffer {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private byte[] literals;
+    private int literalCount;
+    private int[] literalLengths;
+    private int[] matchLengths;
+    private int[] distances;
+    private int size;
+    // Literals added since the last match
+    private int pendingLiterals;
+    private long decodedLength;
+
+    public SequenceBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty buffer with room for the given number of sequences.
+     *
+     * @param capacity the initial capacity
+     */
+    public SequenceBuffer(int capacity) {
+        int sequences = Math.max(1, capacity);
+        literals = new byte[sequences * 4];
+        literalLengths = new int[sequences];
+        matchLengths = new int[sequences];
+        distances = new int[sequences];
+    }
+
+    /**
+     * Appends one literal byte to the current run.
+     *
+     * @param literal the byte value, 0-255
+     */
+    public void addLiteral(int literal) {
+        ensureLiteralCapacity(literalCount + 1);
+        literals[literalCount++] = (byte) literal;
+        pendingLiterals++;
+        decodedLength++;
+    }
+
+    /**
+     * Appends literal bytes to the current run.
+     *
+     * @param source the array holding the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     */
+    public void addLiterals(byte[] source, int offset, int length) {
+        ensureLiteralCapacity(literalCount + length);
+        System.arraycopy(source, offset, literals, literalCount, length);
+        literalCount += length;
+        pendingLiterals += length;
+        decodedLength += length;
+    }
+
+    /**
+     * Ends the current run of literals with a match, completing a sequence.
+     *
+     * @param distance the distance back to the start of the match
+     * @param length   the match length, at least 1
+     */
+    public void addMatch(int distance, int length) {
+        if (length < 1 || length > TokenBuffer.MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid match length: " + length);
+        }
+        if (size == matchLengths.length) {
+            int capacity = size + (size >> 1) + 1;
+            literalLengths = Arrays.copyOf(literalLengths, capacity);
+            matchLengths = Arrays.copyOf(matchLengths, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+        literalLengths[size] = pendingLiterals;
+        matchLengths[size] = length;
+        distances[size] = distance;
+        size++;
+        pendingLiterals = 0;
+        decodedLength += length;
+    }
+
+    /**
+     * Appends tokens, converting them to sequences.
+     *
+     * @param tokens the tokens to append
+     */
+    public void addTokens(TokenBuffer tokens) {
+        int count = tokens.size();
+        for (int i = 0; i < count; i++) {
+            int length = tokens.getLength(i);
+            if (length > 0) {
+                addMatch(tokens.getDistance(i), length);
+            }
+            addLiteral(tokens.getNextByte(i));
+        }
+    }
+
+    /**
+     * Returns the number of complete sequences, i.e. those ending in a match.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getLiteralLength(int index) {
+        return literalLengths[index];
+    }
+
+    public int getMatchLength(int index) {
+        return matchLengths[index];
+    }
+
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Returns the number of literals after the last match.
+     */
+    public int getTrailingLiteralLength() {
+        return pendingLiterals;
+    }
+
+    /**
+     * Returns the array holding the literal bytes of every run in order. Only the first
+     * {@link #getLiteralCount()} bytes are valid, and the array may be replaced as the buffer grows.
+     */
+    public byte[] getLiterals() {
+        return literals;
+    }
+
+    public int getLiteralCount() {
+        return literalCount;
+    }
+
+    /**
+     * Returns the number of bytes the sequences decode to.
+     *
+     * @return the decoded length in bytes
+     */
+    public long getDecodedLength() {
+        return decodedLength;
+    }
+
+    /**
+     * Removes all sequences and literals, keeping the allocated storage for reuse.
+     */
+    public void clear() {
+        size = 0;
+        literalCount = 0;
+        pendingLiterals = 0;
+        decodedLength = 0;
+    }
+
+    private void ensureLiteralCapacity(int capacity) {
+        if (capacity > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(capacity, literals.length + (literals.length >> 1)));
+        }
+    }
+}
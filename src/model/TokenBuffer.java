@@ -0,0 +1,152 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable, reusable sequence of LZ77 tokens stored as packed primitives.
+ * <p>
+ * Each token occupies a single {@code long}: the distance in the upper 32 bits, the match length
+ * in the next 24 bits and the next byte in the lowest 8 bits. Clearing the buffer keeps its
+ * storage, so encoding many inputs through one buffer allocates nothing once it has grown.
+ * {@link LZ77Token} objects are only created on request, as views of individual entries.
+ */
+public class TokenBuffer {
+    public static final int MAX_LENGTH = (1 << 24) - 1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] tokens;
+    private int size;
+    private long decodedLength;
+
+    public TokenBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty buffer with room for the given number of tokens.
+     *
+     * @param capacity the initial capacity
+     */
+    public TokenBuffer(int capacity) {
+        tokens = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a literal token.
+     *
+     * @param literal the byte value, 0-255
+     */
+    public void addLiteral(int literal) {
+        ensureCapacity(size + 1);
+        tokens[size++] = literal & 0xFF;
+        decodedLength++;
+    }
+
+    /**
+     * Appends a match token.
+     *
+     * @param distance the distance back to the start of the match
+     * @param length   the match length
+     * @param nextByte the byte following the match, 0-255
+     */
+    public void addMatch(int distance, int length, int nextByte) {
+        if (length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Match length too large: " + length);
+        }
+        ensureCapacity(size + 1);
+        tokens[size++] = ((long) distance << 32) | ((long) length << 8) | (nextByte & 0xFF);
+        decodedLength += length + 1;
+    }
+
+    /**
+     * Appends a token given in object form.
+     *
+     * @param token the token to append
+     */
+    public void add(LZ77Token token) {
+        if (token.getLength() == 0) {
+            addLiteral(token.getNextCharacter());
+        } else {
+            addMatch(token.getDistance(), token.getLength(), token.getNextCharacter());
+        }
+    }
+
+    public int getDistance(int index) {
+        return (int) (tokens[index] >>> 32);
+    }
+
+    public int getLength(int index) {
+        return (int) (tokens[index] >>> 8) & MAX_LENGTH;
+    }
+
+    public int getNextByte(int index) {
+        return (int) tokens[index] & 0xFF;
+    }
+
+    /**
+     * Returns a token object describing the entry at the given index.
+     *
+     * @param index the token index
+     * @return a new {@link LZ77Token} view of the entry
+     */
+    public LZ77Token get(int index) {
+        return new LZ77Token(getDistance(index), getLength(index), (char) getNextByte(index));
+    }
+
+    /**
+     * Returns the contents as a list of token objects.
+     *
+     * @return a new list of {@link LZ77Token} views
+     */
+    public List<LZ77Token> toList() {
+        List<LZ77Token> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Creates a buffer holding the given tokens.
+     *
+     * @param tokens the tokens to copy
+     * @return a new buffer
+     */
+    public static TokenBuffer fromList(List<LZ77Token> tokens) {
+        TokenBuffer buffer = new TokenBuffer(tokens.size());
+        for (LZ77Token token : tokens) {
+            buffer.add(token);
+        }
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the tokens decode to.
+     *
+     * @return the decoded length in bytes
+     */
+    public long getDecodedLength() {
+        return decodedLength;
+    }
+
+    /**
+     * Removes all tokens, keeping the allocated storage for reuse.
+     */
+    public void clear() {
+        size = 0;
+        decodedLength = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > tokens.length) {
+            tokens = Arrays.copyOf(tokens, Math.max(capacity, tokens.length + (tokens.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Lists the files of a corpus directory, such as the Silesia corpus or a set of dictionary
+ * training samples.
+ */
+public class CorpusFiles {
+
+    private CorpusFiles() {
+    }
+
+    /**
+     * Returns the regular, non-hidden files directly inside a directory, sorted by name so that
+     * every run over the same corpus visits its files in the same order.
+     *
+     * @param directory the corpus directory
+     * @return the files, or null if {@code directory} is not a readable directory
+     */
+    public static File[] list(File directory) {
+        if (!directory.isDirectory()) {
+            return null;
+        }
+        File[] files = directory.listFiles(f -> f.isFile() && !f.getName().startsWith("."));
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparing(File::getName));
+        }
+        return files;
+    }
+}